@@ -1,11 +1,14 @@
 import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Random;
-import java.util.Scanner;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 
 /**
  * Fait avec l'aider complémentaire de raphael L
@@ -22,15 +25,34 @@ import java.util.Scanner;
  * d'efficacité.
  * </p>
  * 
+ * <p>
+ * Créé avec un facteur alpha (cf {@link #ABR(double)}), l'arbre se
+ * rééquilibre à la manière des arbres boucs émissaires (scapegoat trees) :
+ * quand un ajout place un noeud à une profondeur supérieure à alpha·log2(n),
+ * le sous-arbre fautif est reconstruit parfaitement équilibré en temps
+ * linéaire. Les opérations coûtent alors O(log n) amorti, même quand les clés
+ * arrivent dans l'ordre croissant, sans couleur ni champ d'équilibre dans les
+ * noeuds.
+ * </p>
+ * 
  * @param <E>
  *            le type des clés stockées dans l'arbre
  */
 public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
-	private Noeud racine;
+	protected Noeud racine;
 	private int taille;
-	private Comparator<? super E> cmp;
-
-	private class Noeud{
+	protected Comparator<? super E> cmp;
+	// cmp est l'ordre naturel : les clés Integer, Long et String sont
+	// comparées directement, sans appel à cmp (cf rechercher)
+	private boolean ordreNaturel;
+	// facteur de la profondeur maximale alpha·log2(n), 0 sans rééquilibrage
+	private double alpha;
+	// plus grande taille depuis la dernière reconstruction complète
+	private int tailleMax;
+	// le plus petit et le plus grand noeud, null si l'arbre est vide
+	private Noeud noeudMin, noeudMax;
+
+	protected class Noeud{
 		E cle;
 		Noeud pere;
 		Noeud gauche;
@@ -59,6 +81,20 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 			return x;
 		}
 
+		/**
+		 * Renvoie le noeud contenant la clé maximale du sous-arbre enraciné
+		 * dans ce noeud
+		 */
+		Noeud maximum() 
+		{
+			Noeud x = this;
+			while (x.droit != null) {
+				x = x.droit;
+			}
+			
+			return x;
+		}
+
 		/**
 		 * Renvoie le successeur de ce noeud
 		 * 
@@ -83,6 +119,95 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 		}
 	}
 
+	/**
+	 * Spliterator qui se découpe aux frontières des sous-arbres : la première
+	 * moitié s'arrête à la racine, puis chaque morceau se découpe au fils
+	 * droit de son début ou au fils gauche de sa borne. Les éléments sont
+	 * parcourus avec {@link Noeud#suivant()} du noeud courant jusqu'à la
+	 * borne (exclue).
+	 */
+	private class ABRSpliterator implements Spliterator<E> {
+		private Noeud courant, borne;
+		// 0 : pas encore découpé, 1 : morceau de droite, -1 : morceau de gauche
+		private int cote;
+		// estimation de la taille, -1 tant qu'elle n'est pas calculée
+		private long estimation;
+
+		ABRSpliterator(Noeud courant, Noeud borne, int cote, long estimation)
+		{
+			this.courant = courant;
+			this.borne = borne;
+			this.cote = cote;
+			this.estimation = estimation;
+		}
+
+		private long estimer()
+		{
+			if ( estimation < 0 )
+			{
+				courant = racine == null ? null : racine.minimum();
+				estimation = taille;
+			}
+			return estimation;
+		}
+
+		public Spliterator<E> trySplit()
+		{
+			estimer();
+			Noeud e = courant, f = borne;
+			Noeud s = (e == null || e == f) ? null :
+					  cote == 0 ? racine :
+					  cote > 0 ? e.droit :
+					  f != null ? f.gauche : null;
+
+			// s doit être strictement après le début pour couper
+			if ( s != null && s != e && s != f && cmp.compare(e.cle, s.cle) < 0 )
+			{
+				cote = 1;
+				estimation >>>= 1;
+				courant = s;
+				return new ABRSpliterator(e, s, -1, estimation);
+			}
+			return null;
+		}
+
+		public boolean tryAdvance(Consumer<? super E> action)
+		{
+			estimer();
+			if ( courant == null || courant == borne )
+				return false;
+			Noeud e = courant;
+			courant = e.suivant();
+			action.accept(e.cle);
+			return true;
+		}
+
+		public void forEachRemaining(Consumer<? super E> action)
+		{
+			estimer();
+			Noeud f = borne;
+			for ( Noeud e = courant; e != null && e != f; e = e.suivant() )
+				action.accept(e.cle);
+			courant = f;
+		}
+
+		public long estimateSize()
+		{
+			return estimer();
+		}
+
+		public int characteristics()
+		{
+			// les doublons sont permis : pas de DISTINCT
+			return (cote == 0 ? Spliterator.SIZED : 0) | Spliterator.SORTED | Spliterator.ORDERED;
+		}
+
+		public Comparator<? super E> getComparator()
+		{
+			return cmp.equals(Comparator.naturalOrder()) ? null : cmp;
+		}
+	}
+
 	// Constructeurs
 
 	/**
@@ -94,6 +219,7 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 		this.taille = 0;
 		this.cmp = (Comparator<E>) Comparator.naturalOrder();
 		//this.cmp = ( e1, e2)->((Comparable) e1).compareTo( e2 );
+		this.ordreNaturel = true;
 		this.racine = null;
 	}
 
@@ -108,6 +234,41 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 	{
 		this();
 		this.cmp = cmp;
+		this.ordreNaturel = Comparator.naturalOrder().equals(cmp);
+	}
+
+	/**
+	 * Crée un arbre vide qui se rééquilibre : aucun noeud ne reste à une
+	 * profondeur supérieure à alpha·log2(n). Les éléments sont ordonnés selon
+	 * l'ordre naturel.
+	 * 
+	 * @param alpha
+	 *            le facteur de la profondeur maximale, strictement supérieur
+	 *            à 1 (2 par exemple). Plus il est petit, plus l'arbre est bas
+	 *            et plus les reconstructions sont fréquentes.
+	 */
+	public ABR(double alpha) 
+	{
+		this();
+		if ( !(alpha > 1) ) throw new IllegalArgumentException("alpha : " + alpha);
+		this.alpha = alpha;
+	}
+
+	/**
+	 * Crée un arbre vide qui se rééquilibre (cf {@link #ABR(double)}). Les
+	 * éléments sont comparés selon l'ordre imposé par le comparateur
+	 * 
+	 * @param cmp
+	 *            le comparateur utilisé pour définir l'ordre des éléments
+	 * @param alpha
+	 *            le facteur de la profondeur maximale, strictement supérieur
+	 *            à 1
+	 */
+	public ABR(Comparator<? super E> cmp, double alpha) 
+	{
+		this(alpha);
+		this.cmp = cmp;
+		this.ordreNaturel = Comparator.naturalOrder().equals(cmp);
 	}
 
 	/**
@@ -131,6 +292,12 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 		return new ABRIterator();
 	}
 
+	@Override
+	public Spliterator<E> spliterator() 
+	{
+		return new ABRSpliterator(null, null, 0, -1);
+	}
+
 	@Override
 	public int size() 
 	{
@@ -149,15 +316,83 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 	 */
 	private Noeud rechercher(Object o) 
 	{
-		Noeud noeudDelete = new Noeud((E) o);
+		// clés usuelles en ordre naturel : boucles sans appel à cmp, dont le
+		// site d'appel devient mégamorphe quand plusieurs types de clés sont
+		// utilisés
+		if ( ordreNaturel ) 
+		{
+			if ( o instanceof Integer ) return rechercherEntier((Integer) o);
+			if ( o instanceof Long ) return rechercherLong((Long) o);
+			if ( o instanceof String ) return rechercherChaine((String) o);
+		}
+
+		E cle = (E) o;
+		Noeud x = this.racine;
+		while (x != null) 
+		{
+			int compare = cmp.compare(cle, x.cle);
+			if ( compare == 0 )
+				break;
+			x = compare < 0 ? x.gauche : x.droit;
+		}
+		return x;
+	}
+
+	// Une clé d'un autre type dans l'arbre lève ClassCastException, comme
+	// l'aurait fait compareTo
+
+	private Noeud rechercherEntier(int v) 
+	{
+		Noeud x = this.racine;
+		while (x != null) 
+		{
+			int k = (Integer) x.cle;
+			if ( v == k )
+				break;
+			x = v < k ? x.gauche : x.droit;
+		}
+		return x;
+	}
+
+	private Noeud rechercherLong(long v) 
+	{
+		Noeud x = this.racine;
+		while (x != null) 
+		{
+			long k = (Long) x.cle;
+			if ( v == k )
+				break;
+			x = v < k ? x.gauche : x.droit;
+		}
+		return x;
+	}
+
+	private Noeud rechercherChaine(String s) 
+	{
 		Noeud x = this.racine;
-            while (x != null && x.cle != o) {
-                if( cmp.compare(noeudDelete.cle,x.cle) <=-1 )
-                    x = x.gauche;
-                else
-                    x = x.droit;
-            }
-            return x;
+		while (x != null) 
+		{
+			int compare = s.compareTo((String) x.cle);
+			if ( compare == 0 )
+				break;
+			x = compare < 0 ? x.gauche : x.droit;
+		}
+		return x;
+	}
+
+	/**
+	 * Compare deux clés comme cmp, directement pour les clés Integer, Long et
+	 * String en ordre naturel
+	 */
+	protected int comparer(E a, E b) 
+	{
+		if ( ordreNaturel ) 
+		{
+			if ( a instanceof Integer ) return ((Integer) a).compareTo((Integer) b);
+			if ( a instanceof Long ) return ((Long) a).compareTo((Long) b);
+			if ( a instanceof String ) return ((String) a).compareTo((String) b);
+		}
+		return cmp.compare(a, b);
 	}
 
 	/**
@@ -170,7 +405,7 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 	 *         clés. Cette valeur de retour peut être utile dans
 	 *         {@link Iterator#remove()}
 	 */
-	private Noeud supprimer(Noeud z) 
+	protected Noeud supprimer(Noeud z) 
 	{
 		  Noeud y ,x;
 		  
@@ -180,6 +415,15 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 		  else
 		    y = svt;
 		  // y est le nœud à détacher
+
+		  // le plus petit et le plus grand noeud n'ont qu'un fils, ils sont
+		  // détachés eux-mêmes ; si y est le plus grand, sa clé passe dans z
+		  if (z == noeudMin)
+		    noeudMin = svt;
+		  if (z == noeudMax)
+		    noeudMax = z.gauche != null ? z.gauche.maximum() : z.pere;
+		  else if (y == noeudMax)
+		    noeudMax = z;
 		
 		  if (y.gauche != null)
 		    x = y.gauche;
@@ -204,6 +448,14 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 		  }
 
 		taille--;
+		// après beaucoup de suppressions, la borne alpha·log2(tailleMax) ne
+		// tient plus pour la taille courante : on reconstruit tout l'arbre
+		if ( alpha > 0 && 2 * taille < tailleMax )
+		{
+			if ( racine != null )
+				reconstruire(racine, taille);
+			tailleMax = taille;
+		}
 		return svt;
 	}
 
@@ -219,10 +471,7 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 		{
 			prec = null;
 
-			if ( racine == null ) 
-				suiv = null;
-			else 
-				suiv = racine.minimum();
+			suiv = noeudMin;
 
 		}
 		
@@ -247,6 +496,128 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 		}
 	}
 
+	/**
+	 * Rotation à gauche autour de z : le fils droit de z prend sa place.
+	 * L'ordre des clés ne change pas (cf ANR), les itérateurs restent donc
+	 * valides.
+	 */
+	protected void rotationGauche(Noeud z) 
+	{
+		Noeud tmp = z.droit;
+		z.droit = tmp.gauche;
+		if (tmp.gauche != null)
+			tmp.gauche.pere = z;
+
+		tmp.pere = z.pere;
+		if (z.pere == null)
+			racine = tmp;
+		else if (z.pere.gauche == z)
+			z.pere.gauche = tmp;
+		else
+			z.pere.droit = tmp;
+
+		tmp.gauche = z;
+		z.pere = tmp;
+	}
+
+	/**
+	 * Rotation à droite autour de z : le fils gauche de z prend sa place
+	 */
+	protected void rotationDroite(Noeud z) 
+	{
+		Noeud tmp = z.gauche;
+		z.gauche = tmp.droit;
+		if (tmp.droit != null)
+			tmp.droit.pere = z;
+
+		tmp.pere = z.pere;
+		if (z.pere == null)
+			racine = tmp;
+		else if (z.pere.droit == z)
+			z.pere.droit = tmp;
+		else
+			z.pere.gauche = tmp;
+
+		tmp.droit = z;
+		z.pere = tmp;
+	}
+
+	/**
+	 * Cherche, en remontant depuis le noeud z qui vient d'être ajouté trop
+	 * profond, le premier ancêtre x dont la hauteur (mesurée par le chemin
+	 * vers z) dépasse alpha·log2(taille de x), puis reconstruit le sous-arbre
+	 * de x. Un tel ancêtre existe puisque la racine vérifie cette condition.
+	 * Les tailles sont calculées en parcourant les frères : le coût reste
+	 * linéaire en la taille du sous-arbre reconstruit.
+	 */
+	private void reequilibrer(Noeud z) 
+	{
+		Noeud x = z;
+		int tailleX = 1;
+		for (int hauteur = 1; x.pere != null; hauteur++) 
+		{
+			Noeud p = x.pere;
+			tailleX += 1 + compter(x == p.gauche ? p.droit : p.gauche);
+			x = p;
+			if ( hauteur > alpha * log2(tailleX) ) 
+			{
+				reconstruire(x, tailleX);
+				return;
+			}
+		}
+	}
+
+	private static double log2(int n) 
+	{
+		return Math.log(n) / Math.log(2);
+	}
+
+	private int compter(Noeud x) 
+	{
+		return x == null ? 0 : 1 + compter(x.gauche) + compter(x.droit);
+	}
+
+	/**
+	 * Remplace le sous-arbre de x, qui contient n noeuds, par un arbre
+	 * parfaitement équilibré. Les noeuds sont réutilisés, seuls les liens
+	 * changent : l'ordre des clés est conservé et les itérateurs restent
+	 * valides.
+	 */
+	private void reconstruire(Noeud x, int n) 
+	{
+		Noeud pere = x.pere;
+		boolean gauche = pere != null && pere.gauche == x;
+
+		Object[] noeuds = new Object[n];
+		Noeud y = x.minimum();
+		for (int i = 0; i < n; i++, y = y.suivant()) 
+			noeuds[i] = y;
+
+		Noeud r = lier(noeuds, 0, n - 1);
+		r.pere = pere;
+		if ( pere == null ) 
+			racine = r;
+		else if ( gauche ) 
+			pere.gauche = r;
+		else 
+			pere.droit = r;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Noeud lier(Object[] noeuds, int debut, int fin) 
+	{
+		if ( debut > fin ) 
+			return null;
+
+		int milieu = (debut + fin) >>> 1;
+		Noeud x = (Noeud) noeuds[milieu];
+		x.gauche = lier(noeuds, debut, milieu - 1);
+		if ( x.gauche != null ) x.gauche.pere = x;
+		x.droit = lier(noeuds, milieu + 1, fin);
+		if ( x.droit != null ) x.droit.pere = x;
+		return x;
+	}
+
 	// Pour un "joli" affichage
 
 	@Override
@@ -296,38 +667,61 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 		if( racine == null ) 
 		{
 			racine = z;
+			noeudMin = noeudMax = z;
 		}
 		else 
 		{
 			Noeud y = null;
 			Noeud x = racine;
+			int profondeur = 0;
+			boolean aGauche = false;
 
-			while (x != null) 
+			// Ajout en bout d'arbre (clés croissantes ou décroissantes) : z
+			// est accroché directement au plus grand ou au plus petit noeud
+			if ( comparer(z.cle, noeudMax.cle) >= 0 ) 
 			{
-				y = x;
-				int compare = cmp.compare(z.cle, x.cle);
-
-				if ( compare < 0 ) 
-					x = x.gauche;
-				else 
-					x = x.droit;
+				y = noeudMax;
+				noeudMax = z;
+			} else if ( comparer(z.cle, noeudMin.cle) < 0 ) 
+			{
+				y = noeudMin;
+				noeudMin = z;
+				aGauche = true;
 			}
 
-			z.pere = y;
-
-			if (y == null) // arbre vide
-			{ 
-				racine = z;
+			if ( y != null ) 
+			{
+				// la profondeur ne sert qu'au rééquilibrage
+				if ( alpha > 0 )
+					for (Noeud p = y; p != null; p = p.pere)
+						profondeur++;
 			} else 
 			{
-				if (cmp.compare(z.cle, y.cle) < 0)
-					y.gauche = z;
-				else
-					y.droit = z;
+				while (x != null) 
+				{
+					y = x;
+					profondeur++;
+					aGauche = comparer(z.cle, x.cle) < 0;
+					x = aGauche ? x.gauche : x.droit;
+				}
 			}
+
+			z.pere = y;
+			if (aGauche)
+				y.gauche = z;
+			else
+				y.droit = z;
 			z.gauche = z.droit = null;
+			taille++;
+			if ( taille > tailleMax )
+				tailleMax = taille;
+			if ( alpha > 0 && profondeur > alpha * log2(taille) )
+				reequilibrer(z);
+			return;
 		}
 		taille++;
+		if ( taille > tailleMax )
+			tailleMax = taille;
 	}
 	
 	public boolean add(E e) 
@@ -336,8 +730,34 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 		return true;
 	}
 
+	/**
+	 * Ajoute les éléments de c. Si l'arbre est vide et que c est triée selon
+	 * l'ordre de l'arbre, l'arbre est construit directement en temps linéaire
+	 * et parfaitement équilibré, au lieu de dégénérer en liste.
+	 */
+	@SuppressWarnings("unchecked")
 	public boolean addAll( Collection<? extends E> c ) 
 	{
+		if( racine == null && !c.isEmpty() ) 
+		{
+			if( estTrieeSelonCmp(c) ) 
+			{
+				construireTrie(c.iterator(), c.size());
+				return true;
+			}
+
+			Object[] elements = c.toArray();
+			if( estTrie(elements) ) 
+			{
+				construireTrie(Arrays.asList(elements).iterator(), elements.length);
+				return true;
+			}
+			for(Object element : elements) {
+				ajouter(new Noeud((E) element));
+			}
+			return true;
+		}
+
 		for(E element : c) {
 			ajouter(new Noeud(element));
 		}
@@ -345,9 +765,119 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 		return true;
 	}
 
+	/**
+	 * Ajoute les éléments de c, qui doivent être triés selon l'ordre de
+	 * l'arbre. Si l'arbre est vide il est construit en temps linéaire, sinon
+	 * les éléments sont ajoutés un par un.
+	 * 
+	 * @param c
+	 *            les éléments à ajouter, dans l'ordre
+	 */
+	public void ajouterTrie( Collection<? extends E> c ) 
+	{
+		if( racine == null ) 
+			construireTrie(c.iterator(), c.size());
+		else
+			addAll(c);
+	}
+
+	/**
+	 * Teste si c est déjà triée selon cmp sans la parcourir : c'est le cas
+	 * d'un autre ABR ou d'un SortedSet ayant le même comparateur
+	 */
+	private boolean estTrieeSelonCmp( Collection<?> c ) 
+	{
+		if( c instanceof ABR ) 
+			return ((ABR<?>) c).cmp.equals(cmp);
+		if( c instanceof SortedSet ) 
+		{
+			Comparator<?> autre = ((SortedSet<?>) c).comparator();
+			return autre == null ? cmp.equals(Comparator.naturalOrder()) : autre.equals(cmp);
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean estTrie( Object[] elements ) 
+	{
+		for(int i = 1; i < elements.length; i++) 
+		{
+			if( cmp.compare((E) elements[i - 1], (E) elements[i]) > 0 ) 
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Remplace le contenu de l'arbre par les n premiers éléments de it, qui
+	 * doivent être triés, en un arbre parfaitement équilibré. Aucune
+	 * comparaison n'est faite.
+	 * 
+	 * @param it
+	 *            les éléments dans l'ordre
+	 * @param n
+	 *            le nombre d'éléments à prendre
+	 */
+	private void construireTrie( Iterator<?> it, int n ) 
+	{
+		racine = construire(it, 0, n - 1);
+		taille = n;
+		tailleMax = n;
+		noeudMin = racine == null ? null : racine.minimum();
+		noeudMax = racine == null ? null : racine.maximum();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Noeud construire( Iterator<?> it, int debut, int fin ) 
+	{
+		if( debut > fin ) 
+			return null;
+
+		int milieu = (debut + fin) >>> 1;
+		Noeud gauche = construire(it, debut, milieu - 1);
+		Noeud x = new Noeud((E) it.next());
+		Noeud droit = construire(it, milieu + 1, fin);
+
+		x.gauche = gauche;
+		if( gauche != null ) gauche.pere = x;
+		x.droit = droit;
+		if( droit != null ) droit.pere = x;
+
+		return x;
+	}
+
 	public void clear() 
 	{
 		racine = null;
+		taille = 0;
+		tailleMax = 0;
+		noeudMin = noeudMax = null;
+	}
+
+	/**
+	 * Renvoie le plus petit élément. Coûte O(1).
+	 * 
+	 * @return le plus petit élément
+	 * @throws NoSuchElementException
+	 *             si l'arbre est vide
+	 */
+	public E first() 
+	{
+		if ( racine == null ) throw new NoSuchElementException();
+		return noeudMin.cle;
+	}
+
+	/**
+	 * Renvoie le plus grand élément. Coûte O(1).
+	 * 
+	 * @return le plus grand élément
+	 * @throws NoSuchElementException
+	 *             si l'arbre est vide
+	 */
+	public E last() 
+	{
+		if ( racine == null ) throw new NoSuchElementException();
+		return noeudMax.cle;
 	}
 
 	public boolean contains(Object o) 
@@ -411,127 +941,54 @@ public class ABR<E extends Comparable<E>> extends AbstractCollection<E> {
 	}
 	
 	
+	/**
+	 * Affiche les différents cas de suppression. Les mesures de performance
+	 * se trouvent dans le module bench (JMH)
+	 */
 	public static void main(String[] args)
 	{
-		Scanner myObj = new Scanner(System.in);
-		String choixDeTest;  
-		final int longeurStringPourLeTE = 3;  //Je trouvais ça moche de mettre la var en Upper
-		do{
-			System.out.println("Taper 1 pour tester les différents cas");
-			System.out.println("Taper 2 pour tester le temps d'execution du programme");
-			System.out.println("Taper 3 pour tester le temps d'execution du programme avec des ints");
-			System.out.println("Taper 4 pour tester si les clefs sont ajoutées de la plus petite à la plus grande");
-			System.out.print("Quel est votre choix : ");
-			choixDeTest = myObj.nextLine();
-			System.out.println(); // Pour faire joli
-
-
-		}while(!choixDeTest.equals("1") && !choixDeTest.equals("2")&& !choixDeTest.equals("3")&& !choixDeTest.equals("4"));
-
-		if(choixDeTest.equals("1"))  //Sert à tester les différents cas pouvant être rencontrés
-		{
-			ArrayList<String> list = new ArrayList<>();
-
-			list.add("g");
-			list.add("u");
-			list.add("x");
-			list.add("e");
-			list.add("h");
-			list.add("t");
-			list.add("k");
-			list.add("z");
-			list.add("m");
-			list.add("a");
-			list.add("j");
-			list.add("t");
-			
-			Collection<String> abr = new ABR<>(list);
-			String border = "====================================================";
-
-			System.out.println(border);
-			System.out.println("     Test 00: Affichage normal de l'arbre       \n");	
-			System.out.println(abr);
-
-			System.out.println(border);
-			System.out.println("       Test 01: Supprimer une feuille (z)      \n");	
-			abr.remove("z");
-			System.out.println(abr);
-
-			System.out.println(border);
-			System.out.println("  Test 02: Supprimer un noeud avec une feuille (e)  \n");	
-			abr.remove("e");
-			System.out.println(abr);
-
-			System.out.println(border);
-			System.out.println("  Test 03: Supprimer un noeud avec deux feuille (k) \n");	
-			abr.remove("k");
-			System.out.println(abr);
-
-			System.out.println(border);
-			System.out.println("       Test 04: Supprimer la racine  (g)        \n");	
-			abr.remove("g");
-			System.out.println(abr);
-			System.out.println(border);
-
-		}
-		if(choixDeTest.equals("2"))  //Sert à calculer la vitesse d'execution du programme
-		{
-			System.out.println("Nombre d'ajout | Temps d'execution");
-			long start = System.currentTimeMillis(); //Permettre le calcul du temps d'exec
-			int totAjout = 10000000 ; 
-			ABR<String> arbre = new ABR<>();
-
-			for(int nbAjout=0;nbAjout<totAjout;nbAjout++)
-			{
-				arbre.add(RandomString(longeurStringPourLeTE));
-				if(nbAjout%100000 ==0 )
-				{
-					long tempsActuel = System.currentTimeMillis() - start;
-					System.out.println(nbAjout +" , "+ tempsActuel); //Utile pour faire un doc permettant de tracer la courbe d'ou la virgule
-				}
-			}			
-		}
-
-		if(choixDeTest.equals("3"))  //Sert à calculer la vitesse d'execution du programme avec des int
-		{
-
-			System.out.println("Nombre d'ajout | Temps d'execution");
-			long start = System.currentTimeMillis(); //Permettre le calcul du temps d'exec
-			int totAjout = 10000000 ; 
-			ANR<Integer> arbre = new ANR<>();
-
-			for(int nbAjout=0;nbAjout<totAjout;nbAjout++)
-			{
-				arbre.add((int)(Math.random()*(10+1)));
-
-				if(nbAjout%100000 ==0 )
-				{
-					long tempsActuel = System.currentTimeMillis() - start;
-					System.out.println(nbAjout +" , "+ tempsActuel); //Utile pour faire un doc permettant de tracer la courbe d'ou la virgule
-				}
-			}		
-		}
-
-		if(choixDeTest.equals("4"))  //Le cas le plus défavorable de la plus petite à la plus grande valeur
-		{
-
-			System.out.println("Nombre d'ajout | Temps d'execution");
-			long start = System.currentTimeMillis(); //Permettre le calcul du temps d'exec
-			int totAjout = 50000000 ; 
-			ANR<Integer> arbre = new ANR<>();
-
-			for(int nbAjout=0;nbAjout<totAjout;nbAjout++)
-			{
-				arbre.add(nbAjout);
-
-				if(nbAjout%1000000 ==0 )
-				{
-					long tempsActuel = System.currentTimeMillis() - start;
-					System.out.println(nbAjout +" , "+ tempsActuel); //Utile pour faire un doc permettant de tracer la courbe d'ou la virgule
-				}
-			}		
-		}
-	
+		ArrayList<String> list = new ArrayList<>();
+
+		list.add("g");
+		list.add("u");
+		list.add("x");
+		list.add("e");
+		list.add("h");
+		list.add("t");
+		list.add("k");
+		list.add("z");
+		list.add("m");
+		list.add("a");
+		list.add("j");
+		list.add("t");
+		
+		Collection<String> abr = new ABR<>(list);
+		String border = "====================================================";
+
+		System.out.println(border);
+		System.out.println("     Test 00: Affichage normal de l'arbre       \n");	
+		System.out.println(abr);
+
+		System.out.println(border);
+		System.out.println("       Test 01: Supprimer une feuille (z)      \n");	
+		abr.remove("z");
+		System.out.println(abr);
+
+		System.out.println(border);
+		System.out.println("  Test 02: Supprimer un noeud avec une feuille (e)  \n");	
+		abr.remove("e");
+		System.out.println(abr);
+
+		System.out.println(border);
+		System.out.println("  Test 03: Supprimer un noeud avec deux feuille (k) \n");	
+		abr.remove("k");
+		System.out.println(abr);
+
+		System.out.println(border);
+		System.out.println("       Test 04: Supprimer la racine  (g)        \n");	
+		abr.remove("g");
+		System.out.println(abr);
+		System.out.println(border);
 	}
 
 	public static String RandomString(int stringLength) 
@@ -0,0 +1,204 @@
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * <p>
+ * Arbre binaire de recherche auto-ajustant (splay tree), construit sur
+ * {@link ABR} et ses rotations. Chaque accès (recherche, ajout, suppression)
+ * remonte le noeud atteint jusqu'à la racine par des rotations deux à deux :
+ * les clés demandées souvent restent près de la racine. Le coût amorti est
+ * O(log n), et bien moindre quand les accès se concentrent sur peu de clés
+ * (loi de Zipf).
+ * </p>
+ *
+ * <p>
+ * Avec une période k &gt; 1, seul un accès sur k remonte son noeud : moins de
+ * rotations, pour une adaptation plus lente à la distribution des accès.
+ * </p>
+ *
+ * <p>
+ * contains modifie l'arbre : un ABRSplay ne peut pas être lu par plusieurs
+ * threads à la fois. Les itérateurs restent valides, les rotations ne
+ * changeant pas l'ordre des noeuds.
+ * </p>
+ */
+public class ABRSplay<E extends Comparable<E>> extends ABR<E>
+{
+	private final int periode;
+	// nombre d'accès depuis la dernière remontée
+	private int acces;
+
+	// Constructeurs
+
+	/**
+	 * Crée un arbre vide, ordonné selon l'ordre naturel, qui remonte le noeud
+	 * de chaque accès
+	 */
+	public ABRSplay()
+	{
+		this(1);
+	}
+
+	/**
+	 * Crée un arbre vide, ordonné selon l'ordre naturel
+	 *
+	 * @param periode
+	 *            le noeud atteint n'est remonté qu'un accès sur periode
+	 */
+	public ABRSplay(int periode)
+	{
+		super();
+		if ( periode < 1 ) throw new IllegalArgumentException("période : " + periode);
+		this.periode = periode;
+	}
+
+	/**
+	 * Crée un arbre vide, ordonné selon le comparateur, qui remonte le noeud
+	 * de chaque accès
+	 *
+	 * @param cmp
+	 *            le comparateur utilisé pour définir l'ordre des éléments
+	 */
+	public ABRSplay(Comparator<? super E> cmp)
+	{
+		this(cmp, 1);
+	}
+
+	/**
+	 * Crée un arbre vide, ordonné selon le comparateur
+	 *
+	 * @param cmp
+	 *            le comparateur utilisé pour définir l'ordre des éléments
+	 * @param periode
+	 *            le noeud atteint n'est remonté qu'un accès sur periode
+	 */
+	public ABRSplay(Comparator<? super E> cmp, int periode)
+	{
+		super(cmp);
+		if ( periode < 1 ) throw new IllegalArgumentException("période : " + periode);
+		this.periode = periode;
+	}
+
+	/**
+	 * Constructeur par recopie. Crée un arbre qui contient les mêmes éléments
+	 * que c. L'ordre des éléments est l'ordre naturel.
+	 *
+	 * @param c
+	 *            la collection à copier
+	 */
+	public ABRSplay(Collection<? extends E> c)
+	{
+		this(1);
+		addAll(c);
+	}
+
+	/**
+	 * Compte un accès
+	 *
+	 * @return true si le noeud de cet accès doit être remonté
+	 */
+	private boolean remonter()
+	{
+		if ( ++acces < periode )
+			return false;
+		acces = 0;
+		return true;
+	}
+
+	/**
+	 * Remonte x jusqu'à la racine. Quand x et son père sont du même côté
+	 * (zig-zig), on tourne d'abord autour du grand-père : c'est ce qui divise
+	 * à peu près par deux la profondeur des noeuds du chemin.
+	 */
+	private void splay(Noeud x)
+	{
+		while ( x.pere != null )
+		{
+			Noeud p = x.pere, g = p.pere;
+			if ( g == null )
+			{
+				// zig
+				if ( x == p.gauche ) rotationDroite(p);
+				else rotationGauche(p);
+			} else if ( x == p.gauche && p == g.gauche )
+			{
+				// zig-zig
+				rotationDroite(g);
+				rotationDroite(p);
+			} else if ( x == p.droit && p == g.droit )
+			{
+				rotationGauche(g);
+				rotationGauche(p);
+			} else if ( x == p.droit )
+			{
+				// zig-zag
+				rotationGauche(p);
+				rotationDroite(g);
+			} else
+			{
+				rotationDroite(p);
+				rotationGauche(g);
+			}
+		}
+	}
+
+	/**
+	 * Recherche une clé comme ABR, et retient le dernier noeud visité
+	 */
+	private Noeud dernier;
+
+	@SuppressWarnings("unchecked")
+	private Noeud rechercher(Object o)
+	{
+		E cle = (E) o;
+		Noeud x = racine;
+		dernier = null;
+		while ( x != null )
+		{
+			int compare = comparer(cle, x.cle);
+			if ( compare == 0 )
+				break;
+			dernier = x;
+			x = compare < 0 ? x.gauche : x.droit;
+		}
+		return x;
+	}
+
+	@Override
+	public boolean contains(Object o)
+	{
+		Noeud x = rechercher(o);
+		// une recherche infructueuse remonte le dernier noeud visité, voisin
+		// de la clé cherchée
+		Noeud atteint = x != null ? x : dernier;
+		if ( atteint != null && remonter() )
+			splay(atteint);
+		return x != null;
+	}
+
+	@Override
+	public void ajouter(Noeud z)
+	{
+		super.ajouter(z);
+		if ( remonter() )
+			splay(z);
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		Noeud x = rechercher(o);
+		if ( x == null )
+		{
+			if ( dernier != null && remonter() )
+				splay(dernier);
+			return false;
+		}
+
+		// x remonté à la racine, sa suppression ne parcourt que ses fils
+		if ( remonter() )
+			splay(x);
+		supprimer(x);
+		return true;
+	}
+}
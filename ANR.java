@@ -1,23 +1,74 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.NavigableSet;
 import java.util.NoSuchElementException;
 import java.util.Random;
-import java.util.Scanner;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /*
 *Fait avec l'aider complémentaire de raphael L
 *
 */
 
-public class ANR<E extends Comparable<E>> extends AbstractCollection<E> 
+/**
+ * <p>
+ * Arbre rouge-noir. Les doublons sont permis : une clé égale à une clé déjà
+ * présente est ajoutée à sa droite. Le contrat de {@link Set} n'est donc
+ * respecté que si l'on n'ajoute pas de doublons ; sinon les méthodes de
+ * {@link NavigableSet} et les vues voient toutes les occurrences.
+ * </p>
+ * 
+ * <p>
+ * Créé en mode multiensemble (cf {@link #ANR(boolean)}), l'arbre range les
+ * clés égales dans un seul noeud qui compte leurs occurrences : la mémoire
+ * est proportionnelle au nombre de clés distinctes et les recherches coûtent
+ * O(log d) pour d clés distinctes. Les itérateurs répètent chaque clé autant
+ * de fois qu'elle est présente.
+ * </p>
+ */
+public class ANR<E extends Comparable<E>> extends AbstractCollection<E> implements NavigableSet<E>
 {
 	private Noeud racine;
 	private int taille;
 	private Comparator<? super E> cmp;
+	// cmp est l'ordre naturel : les clés Integer, Long et String sont
+	// comparées directement, sans appel à cmp (cf rechercher)
+	private boolean ordreNaturel;
 	private final Noeud sentinelle = new Noeud(null);
+	// le plus petit et le plus grand noeud, la sentinelle si l'arbre est vide
+	private Noeud noeudMin = sentinelle, noeudMax = sentinelle;
+	// clés égales rangées dans un même noeud
+	private boolean multiensemble;
+	// nombre de noeuds, tenu à jour en mode multiensemble seulement
+	private int distincts;
+	// compteurs, null tant qu'ils ne sont pas activés (cf activerStats)
+	private StatsANR stats;
 
 	private class Noeud
 	{
@@ -26,11 +77,18 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 		Noeud droit;
 		Noeud pere;
 		char  couleur;
+		// nombre d'éléments du sous-arbre enraciné dans ce noeud,
+		// occurrences comprises
+		int nombre;
+		// nombre d'occurrences de la clé, toujours 1 hors mode multiensemble
+		int occurrences = 1;
 
 		Noeud(E cle) 
 		{
 			this.cle = cle;
 			couleur = 'N';
+			// la sentinelle, créée en premier, compte pour 0
+			nombre = sentinelle == null ? 0 : 1;
 			
 			gauche = sentinelle;
 			droit = sentinelle;
@@ -41,6 +99,7 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 		{
       this.cle = cle;
       couleur = coul;
+      nombre = 1;
     }
 
 		/**
@@ -78,6 +137,36 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 			
 			return y;
 		}
+
+		/**
+		 * Renvoie le noeud contenant la clé maximale du sous-arbre enraciné
+		 * dans ce noeud
+		 */
+		Noeud maximum() {
+			Noeud x = this;
+			while (x.droit != sentinelle) x = x.droit;
+
+			return x;
+		}
+
+		/**
+		 * Renvoie le prédécesseur de ce noeud, la sentinelle si c'est le
+		 * noeud contenant la plus petite clé
+		 */
+		Noeud precedent() {
+			Noeud x = this;
+			if (x.gauche != sentinelle)
+				return x.gauche.maximum();
+
+			Noeud y = x.pere;
+			while (y != sentinelle && x == y.gauche)
+			{
+			    x = y;
+			    y = y.pere;
+			}
+
+			return y;
+		}
 	}
 	
 	
@@ -89,6 +178,8 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
    */
   private class ANRIterator implements Iterator<E> {
     private Noeud suiv, prec;
+    // occurrences de suiv déjà parcourues
+    private int deja;
     
     public ANRIterator()
     {
@@ -96,7 +187,7 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
       if ( racine == sentinelle ) 
         suiv = sentinelle;
       else 
-        suiv = racine.minimum();        
+        suiv = noeudMin;
     }
     
     public boolean hasNext() 
@@ -108,18 +199,126 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
     {
       if ( suiv == sentinelle ) throw new NoSuchElementException();
       prec = suiv;
-      suiv = suiv.suivant();
+      if ( ++deja == suiv.occurrences ) 
+      {
+        suiv = suiv.suivant();
+        deja = 0;
+      }
       return prec.cle;
     }
 
     public void remove() 
     {
       if ( prec == sentinelle)  throw new IllegalStateException();
-      suiv = supprimer(prec); 
+      if ( prec.occurrences > 1 ) 
+      {
+        retirerUne(prec);
+        if ( suiv == prec ) deja--;
+      } else
+        suiv = supprimer(prec); 
       prec = sentinelle;
     }
   }
 
+	/**
+	 * Spliterator qui se découpe aux frontières des sous-arbres : la première
+	 * moitié s'arrête à la racine, puis chaque morceau se découpe au fils
+	 * droit de son début ou au fils gauche de sa borne. Les éléments sont
+	 * parcourus avec {@link Noeud#suivant()} du noeud courant jusqu'à la
+	 * borne (exclue). Les rangs du début et de la borne sont connus grâce au
+	 * nombre de noeuds des sous-arbres, la taille de chaque morceau est donc
+	 * exacte.
+	 */
+	private class ANRSpliterator implements Spliterator<E> {
+		private Noeud courant, borne;
+		// 0 : pas encore découpé, 1 : morceau de droite, -1 : morceau de gauche
+		private int cote;
+		// rangs du noeud courant et de la borne, fin vaut -1 tant que le
+		// spliterator n'est pas lié à l'arbre
+		private int debut, fin;
+
+		ANRSpliterator(Noeud courant, Noeud borne, int cote, int debut, int fin)
+		{
+			this.courant = courant;
+			this.borne = borne;
+			this.cote = cote;
+			this.debut = debut;
+			this.fin = fin;
+		}
+
+		private void lier()
+		{
+			if ( fin < 0 )
+			{
+				courant = racine == sentinelle ? sentinelle : racine.minimum();
+				debut = 0;
+				fin = taille;
+			}
+		}
+
+		public Spliterator<E> trySplit()
+		{
+			lier();
+			Noeud e = courant, f = borne;
+			Noeud s = (e == sentinelle || e == f) ? sentinelle :
+					  cote == 0 ? racine :
+					  cote > 0 ? e.droit :
+					  f != sentinelle ? f.gauche : sentinelle;
+			if ( s == sentinelle )
+				return null;
+
+			// s doit être strictement entre le début et la borne pour couper
+			int milieu = rang(s);
+			if ( milieu <= debut || milieu >= fin )
+				return null;
+
+			ANRSpliterator gauche = new ANRSpliterator(e, s, -1, debut, milieu);
+			cote = 1;
+			courant = s;
+			debut = milieu;
+			return gauche;
+		}
+
+		public boolean tryAdvance(Consumer<? super E> action)
+		{
+			lier();
+			if ( courant == sentinelle || courant == borne )
+				return false;
+			Noeud e = courant;
+			courant = e.suivant();
+			debut++;
+			action.accept(e.cle);
+			return true;
+		}
+
+		public void forEachRemaining(Consumer<? super E> action)
+		{
+			lier();
+			Noeud f = borne;
+			for ( Noeud e = courant; e != sentinelle && e != f; e = e.suivant() )
+				action.accept(e.cle);
+			courant = f;
+			debut = fin;
+		}
+
+		public long estimateSize()
+		{
+			lier();
+			return fin - debut;
+		}
+
+		public int characteristics()
+		{
+			// les doublons sont permis : pas de DISTINCT
+			return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.SORTED | Spliterator.ORDERED;
+		}
+
+		public Comparator<? super E> getComparator()
+		{
+			return cmp.equals(Comparator.naturalOrder()) ? null : cmp;
+		}
+	}
+
 	// Constructeurs
 
 	/**
@@ -128,6 +327,7 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 	@SuppressWarnings("unchecked")
 	public ANR() {
 	  cmp = (Comparator<E>) Comparator.naturalOrder();
+	  ordreNaturel = true;
 		racine = sentinelle;
 	}
 
@@ -141,9 +341,40 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 	public ANR(Comparator<? super E> cmp) 
 	{
 	  this.cmp = cmp;
+	  ordreNaturel = Comparator.naturalOrder().equals(cmp);
 		racine = sentinelle;
 	}
 
+	/**
+	 * Crée un arbre vide, multiensemble ou non. Les éléments sont ordonnés
+	 * selon l'ordre naturel
+	 * 
+	 * @param multiensemble
+	 *            si true, les clés égales sont rangées dans un seul noeud avec
+	 *            leur nombre d'occurrences
+	 */
+	public ANR(boolean multiensemble) 
+	{
+		this();
+		this.multiensemble = multiensemble;
+	}
+
+	/**
+	 * Crée un arbre vide, multiensemble ou non. Les éléments sont comparés
+	 * selon l'ordre imposé par le comparateur
+	 * 
+	 * @param cmp
+	 *            le comparateur utilisé pour définir l'ordre des éléments
+	 * @param multiensemble
+	 *            si true, les clés égales sont rangées dans un seul noeud avec
+	 *            leur nombre d'occurrences
+	 */
+	public ANR(Comparator<? super E> cmp, boolean multiensemble) 
+	{
+		this(cmp);
+		this.multiensemble = multiensemble;
+	}
+
 	/**
 	 * Constructeur par recopie. Crée un arbre qui contient les mêmes éléments
 	 * que c. L'ordre des éléments est l'ordre naturel.
@@ -156,12 +387,26 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 	{
 	  racine = sentinelle;
 	  this.cmp = (Comparator<E>) Comparator.naturalOrder();
+	  ordreNaturel = true;
 		addAll(c);
 	}
 
 	@Override
 	public Iterator<E> iterator() {return new ANRIterator();}
 
+	/**
+	 * En mode multiensemble, un noeud porte plusieurs éléments : le
+	 * spliterator, qui découpe aux noeuds, est remplacé par celui de
+	 * l'itérateur.
+	 */
+	@Override
+	public Spliterator<E> spliterator() 
+	{
+		if( multiensemble ) 
+			return Spliterators.spliterator(this, Spliterator.ORDERED);
+		return new ANRSpliterator(sentinelle, sentinelle, 0, 0, -1);
+	}
+
 	@Override
 	public int size() {return taille;}
 
@@ -174,19 +419,128 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 	 * @return le noeud qui contient la clé ou null si la clé n'est pas trouvée.
 	 */
 	private Noeud rechercher( Object o) {
-
+		// clés usuelles en ordre naturel : boucles sans appel à cmp, dont le
+		// site d'appel devient mégamorphe quand plusieurs types de clés sont
+		// utilisés. Les compteurs ne sont tenus que par la boucle générique.
+		if( ordreNaturel && stats == null ) 
+		{
+			if( o instanceof Integer ) return rechercherEntier((Integer) o);
+			if( o instanceof Long ) return rechercherLong((Long) o);
+			if( o instanceof String ) return rechercherChaine((String) o);
+		}
 
 		Noeud x = racine;
 		E elementActuel = (E)o;
+		int pas = 0;
+
+		while (x != sentinelle) 
+		{
+			int c = cmp.compare(elementActuel, x.cle);
+			if( c == 0 ) 
+				break;
+			pas++;
+			x = c < 0 ? x.gauche : x.droit;
+		}
+
+		if( stats != null ) 
+		{
+			stats.recherches.increment();
+			stats.comparaisons.add(x == sentinelle ? pas : pas + 1);
+		}
+		return x;
+	}
+
+	// Une clé d'un autre type dans l'arbre lève ClassCastException, comme
+	// l'aurait fait compareTo
+
+	private Noeud rechercherEntier( int v ) 
+	{
+		Noeud x = racine;
+		while (x != sentinelle) 
+		{
+			int k = (Integer) x.cle;
+			if( v == k ) 
+				break;
+			x = v < k ? x.gauche : x.droit;
+		}
+		return x;
+	}
 
-		while (x != sentinelle &&  cmp.compare(elementActuel, x.cle) !=0) 
+	private Noeud rechercherLong( long v ) 
+	{
+		Noeud x = racine;
+		while (x != sentinelle) 
 		{
-			x = cmp.compare(elementActuel, x.cle)<1 ? x.gauche : x.droit;
+			long k = (Long) x.cle;
+			if( v == k ) 
+				break;
+			x = v < k ? x.gauche : x.droit;
 		}
+		return x;
+	}
 
+	private Noeud rechercherChaine( String s ) 
+	{
+		Noeud x = racine;
+		while (x != sentinelle) 
+		{
+			int c = s.compareTo((String) x.cle);
+			if( c == 0 ) 
+				break;
+			x = c < 0 ? x.gauche : x.droit;
+		}
 		return x;
 	}
 
+	/**
+	 * Compare deux clés comme cmp, directement pour les clés Integer, Long et
+	 * String en ordre naturel
+	 */
+	private int comparer( E a, E b ) 
+	{
+		if( ordreNaturel ) 
+		{
+			if( a instanceof Integer ) return ((Integer) a).compareTo((Integer) b);
+			if( a instanceof Long ) return ((Long) a).compareTo((Long) b);
+			if( a instanceof String ) return ((String) a).compareTo((String) b);
+		}
+		return cmp.compare(a, b);
+	}
+
+	/**
+	 * Recherche une clé en au plus pasMax étapes. Utilisée par
+	 * {@link ANRConcurrent} pour chercher sans verrou : si l'arbre est
+	 * modifié pendant la recherche, les noeuds lus peuvent être incohérents
+	 * (cycle pendant une rotation, noeud pas encore initialisé) mais la
+	 * recherche s'arrête toujours. Le résultat n'a de sens que si l'arbre n'a
+	 * pas été modifié entre-temps.
+	 * 
+	 * @param o
+	 *            la clé à chercher
+	 * @param pasMax
+	 *            le nombre maximal de noeuds visités
+	 * @return 1 si la clé est trouvée, 0 si elle est absente, -1 si la
+	 *         recherche a été abandonnée
+	 */
+	@SuppressWarnings("unchecked")
+	int rechercherBorne( Object o, int pasMax ) 
+	{
+		E e = (E) o;
+		Noeud x = racine;
+		for(int pas = 0; pas < pasMax; pas++) 
+		{
+			if( x == null ) 
+				return -1;
+			if( x == sentinelle ) 
+				return 0;
+			int c = cmp.compare(e, x.cle);
+			if( c == 0 ) 
+				return 1;
+			x = c < 0 ? x.gauche : x.droit;
+		}
+		return -1;
+	}
+
 	/**
 	 * Supprime le noeud z. Cette méthode peut être utilisée dans
 	 * {@link #remove(Object)} et {@link Iterator#remove()}
@@ -206,6 +560,15 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 	  else
 	    y = svt;
 	  // y est le nœud à détacher
+
+	  // le plus petit et le plus grand noeud n'ont qu'un fils, ils sont
+	  // détachés eux-mêmes ; si y est le plus grand, sa clé passe dans z
+	  if (z == noeudMin)
+	    noeudMin = svt;
+	  if (z == noeudMax)
+	    noeudMax = z.precedent();
+	  else if (y == noeudMax)
+	    noeudMax = z;
 	
 	  if (y.gauche != sentinelle)
 	    x = y.gauche;
@@ -225,23 +588,37 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 	    else
 	      y.pere.droit = x;
 	  }
+	  // les noeuds entre y et z perdent les occurrences de y, qui remontent
+	  // dans z ; z et ses ancêtres perdent celles de z
+	  int retrait = y.occurrences, retraitZ = z.occurrences;
+	  for (Noeud p = y.pere; p != sentinelle; p = p.pere)
+	  {
+	    if (p == z) retrait = retraitZ;
+	    p.nombre -= retrait;
+	  }
 	
 	  if (y != z) 
 	  {
 		  z.cle = y.cle;
+		  z.occurrences = y.occurrences;
 		  svt = z;
 	  }
 	  if (y.couleur == 'N') 
 	    supprimerCorrection(x);
 
-		taille--;
+		taille -= retraitZ;
+		distincts--;
+		if( stats != null ) stats.suppressions.increment();
 		return svt;
 	}
 	
 	private void supprimerCorrection(Noeud x) {
 	  Noeud w;
+	  // tours de boucle et noeuds recolorés, pour les compteurs
+	  int tours = 0, couleurs = 0;
     while (x != racine && x.couleur == 'N') 
     {
+      tours++;
       if (x == x.pere.gauche) {
         w = x.pere.droit; // le frère de x
       if (w.couleur == 'R') 
@@ -251,12 +628,14 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
         x.pere.couleur = 'R';
         rotationGauche(x.pere);
         w = x.pere.droit;
+        couleurs += 2;
       }
       if (w.gauche.couleur == 'N' && w.droit.couleur == 'N') 
       {
         // cas 2
         w.couleur = 'R';
           x = x.pere;
+          couleurs++;
       } else 
       {
         if (w.droit.couleur == 'N') 
@@ -266,6 +645,7 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
           w.couleur = 'R';
             rotationDroite(w);
             w = x.pere.droit;
+            couleurs += 2;
         }
         // cas 4
         w.couleur = x.pere.couleur;
@@ -273,6 +653,7 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
         w.droit.couleur = 'N';
         rotationGauche(x.pere);
         x = racine;
+        couleurs += 3;
       }
       } else 
       {
@@ -285,14 +666,16 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
             // cas 1
             w.couleur = 'N';
             x.pere.couleur = 'R';
-            rotationGauche(x.pere);
+            rotationDroite(x.pere);
             w = x.pere.gauche;
+            couleurs += 2;
           }
           if (w.droit.couleur == 'N' && w.gauche.couleur == 'N') 
           {
             // cas 2
             w.couleur = 'R';
             x = x.pere;
+            couleurs++;
           } else {
             if (w.gauche.couleur == 'N') 
             {
@@ -301,6 +684,7 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
               w.couleur = 'R';
               rotationGauche(w);
               w = x.pere.gauche;
+              couleurs += 2;
             }
             // cas 4
             w.couleur = x.pere.couleur;
@@ -308,12 +692,19 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
             w.gauche.couleur = 'N';
             rotationDroite(x.pere);
             x = racine;
+            couleurs += 3;
           }
         }
       }
     }
 	  // (**) est vérifié ici
+	  if( x.couleur == 'R' ) couleurs++;
 	  x.couleur = 'N';
+	  if( stats != null ) 
+	  {
+	    stats.iterationsCorrection.add(tours);
+	    stats.recolorations.add(couleurs);
+	  }
 	}
 	
 
@@ -383,46 +774,146 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 		  {
 		    z.couleur = 'N';
 			  racine = z;
+			  noeudMin = noeudMax = z;
 		  }
 		  else 
 		  {
 			  Noeud y = sentinelle;
 			  Noeud x = racine;
-			  
-			  while (x != sentinelle) 
+			  int profondeur = 0;
+			  // comparaisons faites, pour les compteurs
+			  int comparaisons = 1;
+			  boolean aGauche = false;
+
+			  // Ajout en bout d'arbre (clés croissantes ou décroissantes) : z
+			  // est accroché directement au plus grand ou au plus petit noeud,
+			  // sans comparaison sur le chemin, qu'on remonte seulement pour
+			  // mettre à jour les nombres
+			  int c = comparer(z.cle, noeudMax.cle);
+			  if ( c == 0 && multiensemble ) 
 			  {
-			    y = x;
-			    if ( cmp.compare(z.cle, x.cle) < 0 ) 
+			    if( stats != null ) stats.comparaisons.increment();
+			    ajouterOccurrence(noeudMax);
+			    return;
+			  }
+			  if ( c >= 0 ) 
+			  {
+			    y = noeudMax;
+			    noeudMax = z;
+			  } else 
+			  {
+			    comparaisons++;
+			    if ( comparer(z.cle, noeudMin.cle) < 0 ) 
 			    {
-			    	x = x.gauche;
-			    }
-			    else {
-			    	x = x.droit;
+			      y = noeudMin;
+			      noeudMin = z;
+			      aGauche = true;
 			    }
 			  }
-			  z.pere = y;
-			  if (y == sentinelle) 
-			  { 
-			    racine = z;
+			  if ( y != sentinelle ) 
+			  {
+			    for (Noeud p = y; p != sentinelle; p = p.pere) 
+			    {
+			      p.nombre++;
+			      profondeur++;
+			    }
 			  } else 
 			  {
-			    if (cmp.compare(z.cle, y.cle) < 0)
-			      y.gauche = z;
-			    else
-			      y.droit = z;
+			    while (x != sentinelle) 
+			    {
+			      y = x;
+			      profondeur++;
+			      x.nombre++;
+			      c = comparer(z.cle, x.cle);
+			      comparaisons++;
+			      if ( c == 0 && multiensemble ) 
+			      {
+			        // les nombres du chemin sont déjà augmentés
+			        x.occurrences++;
+			        taille++;
+			        if( stats != null ) 
+			        {
+			          stats.ajouts.increment();
+			          stats.comparaisons.add(comparaisons);
+			        }
+			        return;
+			      }
+			      aGauche = c < 0;
+			      x = aGauche ? x.gauche : x.droit;
+			    }
 			  }
+			  z.pere = y;
+			  if (aGauche)
+			    y.gauche = z;
+			  else
+			    y.droit = z;
 			  z.gauche = z.droit = sentinelle;
+			  z.nombre = 1;
 			  z.couleur = 'R';
 
+			  if( stats != null ) 
+			  {
+			    stats.comparaisons.add(comparaisons);
+			    stats.profondeurMax.accumulate(profondeur);
+			  }
 			  ajouterCorrection(z);
 		  }
 		  taille++;
+		  distincts++;
+		  if( stats != null ) stats.ajouts.increment();
+	}
+
+	/**
+	 * Ajoute une occurrence de la clé du noeud x (mode multiensemble)
+	 */
+	private void ajouterOccurrence( Noeud x ) 
+	{
+		x.occurrences++;
+		for(Noeud p = x; p != sentinelle; p = p.pere)
+			p.nombre++;
+		taille++;
+		if( stats != null ) stats.ajouts.increment();
+	}
+
+	/**
+	 * Retire une occurrence de la clé du noeud x, et le noeud lui-même si
+	 * c'était la dernière
+	 * 
+	 * @return le noeud qui contient la clé suivante (cf {@link #supprimer}),
+	 *         x s'il reste des occurrences
+	 */
+	private Noeud retirerUne( Noeud x ) 
+	{
+		if( x.occurrences == 1 ) 
+			return supprimer(x);
+		x.occurrences--;
+		for(Noeud p = x; p != sentinelle; p = p.pere)
+			p.nombre--;
+		taille--;
+		return x;
 	}
 
 	private void ajouterCorrection( Noeud n){
+		corrigerRougeRouge(n);
+		if( stats != null && racine.couleur == 'R' ) stats.recolorations.increment();
+		racine.couleur = 'N';
+	}
+
+	/**
+	 * Corrige un noeud rouge de père rouge en remontant. S'arrête sous la
+	 * racine du sous-arbre (dont le père est la sentinelle, noire) : la
+	 * racine peut rester rouge, c'est à l'appelant de la recolorer.
+	 * 
+	 * @param n
+	 *            le noeud rouge dont le père est peut-être rouge
+	 */
+	private void corrigerRougeRouge( Noeud n){
+		// tours de boucle et noeuds recolorés, pour les compteurs
+		int tours = 0, couleurs = 0;
 		// re organisation de l'arbre, en remontant vers la racine
-		while(n != racine && n.pere.couleur == 'R' )
+		while( n.pere.couleur == 'R' )
 		{
+			tours++;
 			if(n.pere == n.pere.pere.gauche)
 			{
 				Noeud y = n.pere.pere.droit;
@@ -432,6 +923,7 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 					y.couleur = 'N';
 					n.pere.pere.couleur = 'R';
 					n = n.pere.pere;
+					couleurs += 3;
 				}else
 				{
 					if(n == n.pere.droit)
@@ -442,6 +934,7 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 					n.pere.couleur = 'N';
 					n.pere.pere.couleur = 'R';
 					rotationDroite(n.pere.pere);
+					couleurs += 2;
 				}
 			}else
 			{
@@ -452,6 +945,7 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 					y.couleur = 'N';
 					n.pere.pere.couleur = 'R';
 					n = n.pere.pere;
+					couleurs += 3;
 				}else
 				{
 					if(n == n.pere.gauche)
@@ -462,10 +956,15 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 					n.pere.couleur = 'N';
 					n.pere.pere.couleur = 'R';
 					rotationGauche(n.pere.pere);
+					couleurs += 2;
 				}
 			}
 		}
-		racine.couleur = 'N';
+		if( stats != null ) 
+		{
+			stats.iterationsCorrection.add(tours);
+			stats.recolorations.add(couleurs);
+		}
 	}
 
 	private void rotationGauche(Noeud z) {
@@ -480,7 +979,8 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 		tmp.pere = z.pere;
 		if(z.pere==sentinelle) 
 		{
-			racine = tmp;
+			// z peut aussi être la racine d'un sous-arbre détaché (cf joindre)
+			if (z == racine) racine = tmp;
 		}else
 		{
 			if(z.pere.gauche == z)
@@ -494,6 +994,10 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 
 		tmp.gauche = z;
 		z.pere = tmp;
+
+		tmp.nombre = z.nombre;
+		z.nombre = z.gauche.nombre + z.droit.nombre + z.occurrences;
+		if( stats != null ) stats.rotations.increment();
 	}
 
 	private void rotationDroite(Noeud z) {
@@ -508,7 +1012,8 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 		tmp.pere = z.pere;
 		if (z.pere == sentinelle) 
 		{
-			racine = tmp;
+			// z peut aussi être la racine d'un sous-arbre détaché (cf joindre)
+			if (z == racine) racine = tmp;
 		} else 
 		{
 			if (z.pere.droit == z) 
@@ -522,6 +1027,10 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 
 		tmp.droit = z;
 		z.pere = tmp;
+
+		tmp.nombre = z.nombre;
+		z.nombre = z.gauche.nombre + z.droit.nombre + z.occurrences;
+		if( stats != null ) stats.rotations.increment();
 	}
 	
 	public boolean add(E e) 
@@ -530,7 +1039,39 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 		return true;
 	}
 
+	/**
+	 * Ajoute les éléments de c. Si l'arbre est vide et que c est triée selon
+	 * l'ordre de l'arbre, l'arbre est construit directement en temps linéaire
+	 * (cf {@link #construireTrie(Iterator, int)}). Sinon, un ANR de même
+	 * comparateur est ajouté par {@link #union(ANR)}.
+	 */
+	@SuppressWarnings("unchecked")
 	public boolean addAll( Collection<? extends E> c ) {
+		if( racine == sentinelle && !c.isEmpty() ) 
+		{
+			if( estTrieeSelonCmp(c) ) 
+			{
+				construireTrie(c.iterator(), c.size());
+				return true;
+			}
+			
+			Object[] elements = c.toArray();
+			if( estTrie(elements) ) 
+			{
+				construireTrie(Arrays.asList(elements).iterator(), elements.length);
+				return true;
+			}
+			for(Object element : elements) {
+				ajouter(new Noeud((E) element));
+			}
+			return true;
+		}
+
+		if( c instanceof ANR && ((ANR<?>) c).cmp.equals(cmp) && !multiensemble && !((ANR<?>) c).multiensemble ) 
+			return union((ANR<? extends E>) c);
+		if( c == this ) 
+			return union(this);
+
 		for(E element : c) {
 			ajouter(new Noeud(element));
 		}
@@ -538,8 +1079,169 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 		return true;
 	}
 
+	/**
+	 * Ajoute les éléments de c, qui doivent être triés selon l'ordre de
+	 * l'arbre. Si l'arbre est vide il est construit en temps linéaire, sinon
+	 * les éléments sont ajoutés un par un.
+	 * 
+	 * @param c
+	 *            les éléments à ajouter, dans l'ordre
+	 */
+	public void ajouterTrie( Collection<? extends E> c ) 
+	{
+		if( racine == sentinelle ) 
+			construireTrie(c.iterator(), c.size());
+		else
+			addAll(c);
+	}
+
+	/**
+	 * Teste si c est déjà triée selon cmp sans la parcourir : c'est le cas
+	 * d'un autre ANR ou d'un SortedSet ayant le même comparateur
+	 */
+	private boolean estTrieeSelonCmp( Collection<?> c ) 
+	{
+		if( c instanceof ANR ) 
+			return ((ANR<?>) c).cmp.equals(cmp);
+		if( c instanceof SortedSet ) 
+		{
+			Comparator<?> autre = ((SortedSet<?>) c).comparator();
+			return autre == null ? cmp.equals(Comparator.naturalOrder()) : autre.equals(cmp);
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean estTrie( Object[] elements ) 
+	{
+		for(int i = 1; i < elements.length; i++) 
+		{
+			if( cmp.compare((E) elements[i - 1], (E) elements[i]) > 0 ) 
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Remplace le contenu de l'arbre par les n premiers éléments de it, qui
+	 * doivent être triés. L'arbre obtenu est parfaitement équilibré : seul le
+	 * dernier niveau, s'il est incomplet, est rouge. Aucune comparaison ni
+	 * rotation n'est faite.
+	 * 
+	 * @param it
+	 *            les éléments dans l'ordre
+	 * @param n
+	 *            le nombre d'éléments à prendre
+	 */
+	private void construireTrie( Iterator<?> it, int n ) 
+	{
+		if( multiensemble ) 
+		{
+			construireMultiensemble(it, n);
+			return;
+		}
+		racine = construire(it, 0, n - 1, 0, niveauRouge(n));
+		taille = n;
+		distincts = n;
+		bornes();
+	}
+
+	/**
+	 * {@link #construireTrie(Iterator, int)} en mode multiensemble : les
+	 * suites de clés égales sont d'abord regroupées, puis l'arbre des clés
+	 * distinctes est construit et reçoit les nombres d'occurrences
+	 */
+	@SuppressWarnings("unchecked")
+	private void construireMultiensemble( Iterator<?> it, int n ) 
+	{
+		Object[] cles = new Object[n];
+		int[] occurrences = new int[n];
+		int d = 0;
+		for(int i = 0; i < n; i++) 
+		{
+			E e = (E) it.next();
+			if( d > 0 && cmp.compare((E) cles[d - 1], e) == 0 ) 
+				occurrences[d - 1]++;
+			else 
+			{
+				cles[d] = e;
+				occurrences[d++] = 1;
+			}
+		}
+
+		Noeud r = construire(Arrays.asList(cles).subList(0, d).iterator(), 0, d - 1, 0, niveauRouge(d));
+		if( r != sentinelle ) 
+		{
+			int i = 0;
+			for(Noeud x = r.minimum(); x != sentinelle; x = x.suivant())
+				x.occurrences = occurrences[i++];
+			recompter(r);
+		}
+		racine = r;
+		taille = n;
+		distincts = d;
+		bornes();
+	}
+
+	/**
+	 * Recalcule les nombres du sous-arbre de x à partir des occurrences
+	 */
+	private int recompter( Noeud x ) 
+	{
+		if( x == sentinelle ) 
+			return 0;
+		x.nombre = recompter(x.gauche) + recompter(x.droit) + x.occurrences;
+		return x.nombre;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Noeud construire( Iterator<?> it, int debut, int fin, int niveau, int niveauRouge ) 
+	{
+		if( debut > fin ) 
+			return sentinelle;
+
+		int milieu = (debut + fin) >>> 1;
+		Noeud gauche = construire(it, debut, milieu - 1, niveau + 1, niveauRouge);
+		Noeud x = new Noeud((E) it.next());
+		Noeud droit = construire(it, milieu + 1, fin, niveau + 1, niveauRouge);
+
+		x.gauche = gauche;
+		if( gauche != sentinelle ) gauche.pere = x;
+		x.droit = droit;
+		if( droit != sentinelle ) droit.pere = x;
+		x.nombre = fin - debut + 1;
+		if( niveau == niveauRouge ) x.couleur = 'R';
+
+		return x;
+	}
+
+	/**
+	 * Renvoie le niveau des feuilles d'un arbre équilibré de n noeuds quand
+	 * ce niveau est incomplet (la racine est au niveau 0)
+	 */
+	private static int niveauRouge( int n ) 
+	{
+		int niveau = 0;
+		for(int m = n - 1; m >= 0; m = m / 2 - 1)
+			niveau++;
+		return niveau;
+	}
+
+	/**
+	 * Recalcule le plus petit et le plus grand noeud après une construction
+	 * ou une opération ensembliste
+	 */
+	private void bornes() 
+	{
+		noeudMin = racine == sentinelle ? sentinelle : racine.minimum();
+		noeudMax = racine == sentinelle ? sentinelle : racine.maximum();
+	}
+
 	public void clear() {
 		racine = sentinelle;
+		noeudMin = noeudMax = sentinelle;
+		taille = 0;
+		distincts = 0;
 	}
 
 	public boolean contains(Object o) 
@@ -551,7 +1253,25 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 		}
 	}
 	
+	/**
+	 * Si c est triée selon l'ordre de l'arbre (un autre ANR ou un SortedSet
+	 * de même ordre), chaque recherche part de la précédente (cf
+	 * {@link #rechercherTries(Iterable)}).
+	 */
+	@SuppressWarnings("unchecked")
 	public boolean containsAll(Collection<?> c) {
+		if( estTrieeSelonCmp(c) ) 
+		{
+			if( racine == sentinelle ) 
+				return c.isEmpty();
+			Doigt doigt = new Doigt();
+			for( Object element: c) 
+			{
+				if( !doigt.chercher((E) element) ) 
+					return false;
+			}
+			return true;
+		}
 		
 		for( Object element: c) 
 		{
@@ -574,143 +1294,1693 @@ public class ANR<E extends Comparable<E>> extends AbstractCollection<E>
 		if( n == sentinelle ) 
 			return false;
 		
-		supprimer(n);
+		retirerUne(n);
 		return true;
 	}
 	
 
+	/**
+	 * Renvoie une copie en lecture seule de l'arbre, rangée dans un tableau
+	 * pour des recherches plus rapides (cf {@link ANRFige}). Les
+	 * modifications suivantes de l'arbre ne changent pas la copie. Coûte
+	 * O(n).
+	 * 
+	 * @return la copie figée
+	 */
+	public ANRFige<E> figer() 
+	{
+		return new ANRFige<E>(toArray(), cmp);
+	}
+
+	// Instantanés
+
+	// "ANR1", en tête de chaque instantané
+	private static final int MAGIQUE = 0x414E5231;
+	private static final int TAILLE_TAMPON = 1 << 16;
+
+	/**
+	 * Écrit les éléments de l'arbre, dans l'ordre, à la position courante du
+	 * canal : l'entier magique "ANR1", le nombre d'éléments sur 4 octets
+	 * puis chaque clé codée par codec. Les clés passent par un tampon direct
+	 * de taille fixe, vidé dans le canal chaque fois qu'il est plein.
+	 * 
+	 * @param canal
+	 *            le canal où écrire
+	 * @param codec
+	 *            le codage des clés
+	 * @throws IOException
+	 *             si l'écriture échoue
+	 */
+	public void sauvegarder( FileChannel canal, CodecCle<? super E> codec ) throws IOException 
+	{
+		ByteBuffer tampon = ByteBuffer.allocateDirect(TAILLE_TAMPON);
+		tampon.putInt(MAGIQUE).putInt(taille);
+		for(E e : this) 
+		{
+			while( true ) 
+			{
+				int debut = tampon.position();
+				try 
+				{
+					codec.ecrire(e, tampon);
+					break;
+				} catch( BufferOverflowException plein ) 
+				{
+					// on recommence la clé après avoir vidé le tampon, ou
+					// dans un tampon plus grand si elle ne tient pas dans un
+					// tampon vide
+					tampon.position(debut);
+					if( debut == 0 ) 
+						tampon = ByteBuffer.allocateDirect(2 * tampon.capacity());
+					else 
+						vider(canal, tampon);
+				}
+			}
+		}
+		vider(canal, tampon);
+	}
+
+	private static void vider( FileChannel canal, ByteBuffer tampon ) throws IOException 
+	{
+		tampon.flip();
+		while( tampon.hasRemaining() ) 
+			canal.write(tampon);
+		tampon.clear();
+	}
+
+	/**
+	 * Remplace le contenu de l'arbre par un instantané écrit par
+	 * {@link #sauvegarder}, lu à la position courante du canal. Les clés sont
+	 * décodées au fil de la lecture dans un tampon direct de taille fixe et
+	 * l'arbre est construit en temps linéaire, parfaitement équilibré (cf
+	 * {@link #construireTrie(Iterator, int)}) : le fichier n'est jamais chargé
+	 * en entier en mémoire. L'instantané doit avoir été écrit par un arbre de
+	 * même ordre. Si la lecture échoue, l'arbre n'est pas modifié.
+	 * 
+	 * @param canal
+	 *            le canal où lire
+	 * @param codec
+	 *            le codage des clés
+	 * @throws IOException
+	 *             si la lecture échoue, si le canal ne contient pas un
+	 *             instantané ou s'il est tronqué
+	 */
+	public void charger( FileChannel canal, CodecCle<? extends E> codec ) throws IOException 
+	{
+		Lecteur lecteur = new Lecteur(canal, codec);
+		try 
+		{
+			if( lecteur.lire(ByteBuffer::getInt) != MAGIQUE ) 
+				throw new IOException("Le canal ne contient pas un instantané d'ANR");
+			int n = lecteur.lire(ByteBuffer::getInt);
+			if( n < 0 ) 
+				throw new IOException("Taille invalide : " + n);
+			lecteur.reste = n;
+			construireTrie(lecteur, n);
+		} catch( UncheckedIOException e ) 
+		{
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Les clés d'un instantané, décodées au fur et à mesure de la lecture du
+	 * canal. Les erreurs de lecture sont transmises par
+	 * {@link UncheckedIOException}.
+	 */
+	private class Lecteur implements Iterator<E> 
+	{
+		private final FileChannel canal;
+		private final CodecCle<? extends E> codec;
+		// en mode lecture : les octets lus et pas encore décodés
+		private ByteBuffer tampon;
+		// nombre de clés restant à lire
+		private int reste;
+
+		Lecteur( FileChannel canal, CodecCle<? extends E> codec ) 
+		{
+			this.canal = canal;
+			this.codec = codec;
+			tampon = ByteBuffer.allocateDirect(TAILLE_TAMPON);
+			tampon.flip();
+		}
+
+		public boolean hasNext() {return reste > 0;}
+
+		public E next() 
+		{
+			if( reste == 0 ) throw new NoSuchElementException();
+			reste--;
+			return lire(codec::lire);
+		}
+
+		<T> T lire( Function<ByteBuffer, T> decodeur ) 
+		{
+			while( true ) 
+			{
+				int debut = tampon.position();
+				try 
+				{
+					return decodeur.apply(tampon);
+				} catch( BufferUnderflowException e ) 
+				{
+					tampon.position(debut);
+					remplir();
+				}
+			}
+		}
+
+		/**
+		 * Complète le tampon par une lecture du canal, en l'agrandissant s'il
+		 * est plein
+		 */
+		private void remplir() 
+		{
+			tampon.compact();
+			if( !tampon.hasRemaining() ) 
+			{
+				ByteBuffer plusGrand = ByteBuffer.allocateDirect(2 * tampon.capacity());
+				tampon.flip();
+				plusGrand.put(tampon);
+				tampon = plusGrand;
+			}
+			try 
+			{
+				int lus = canal.read(tampon);
+				tampon.flip();
+				if( lus < 0 ) 
+					throw new EOFException("Instantané tronqué");
+			} catch( IOException e ) 
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	// Compteurs
+
+	/**
+	 * Nombre de noeuds, lu par {@link StatsANR} : en mode multiensemble, un
+	 * noeud porte toutes les occurrences de sa clé
+	 */
+	int nombreNoeuds()
+	{
+		return multiensemble ? distincts : taille;
+	}
+
+	/**
+	 * Hauteur noire lue par {@link StatsANR} depuis un autre thread, sans
+	 * verrou : comme {@link #rechercherBorne}, le parcours s'arrête même si
+	 * l'arbre est modifié pendant la lecture.
+	 */
+	int hauteurNoireBornee() 
+	{
+		int h = 0;
+		Noeud x = racine;
+		for(int pas = 0; pas < 64 && x != null && x != sentinelle; pas++, x = x.gauche)
+			if( x.couleur == 'N' ) h++;
+		return h;
+	}
+
+	/**
+	 * Active les compteurs de l'arbre (comparaisons, rotations,
+	 * recolorations...). Tant qu'ils ne sont pas activés, ils ne coûtent qu'un
+	 * test à null par opération.
+	 * 
+	 * @return les compteurs, à zéro s'ils n'étaient pas encore activés
+	 */
+	public TreeStatsMXBean activerStats() 
+	{
+		if( stats == null ) 
+			stats = new StatsANR(this);
+		return stats;
+	}
+
+	/**
+	 * Désactive les compteurs
+	 */
+	public void desactiverStats() 
+	{
+		stats = null;
+	}
+
+	/**
+	 * Renvoie les compteurs de l'arbre
+	 * 
+	 * @return les compteurs, null s'ils ne sont pas activés
+	 */
+	public TreeStatsMXBean getStats() {return stats;}
+
+	/**
+	 * Active les compteurs et les publie sur le serveur JMX de la JVM, sous
+	 * le nom ANR:type=TreeStats,name=nom
+	 * 
+	 * @param nom
+	 *            le nom qui distingue cet arbre sur le tableau de bord
+	 * @return le nom JMX des compteurs, pour les retirer avec
+	 *         {@link MBeanServer#unregisterMBean(ObjectName)}
+	 * @throws JMException
+	 *             si le nom est invalide ou déjà pris
+	 */
+	public ObjectName publierStats( String nom ) throws JMException 
+	{
+		ObjectName nomJmx = new ObjectName("ANR:type=TreeStats,name=" + ObjectName.quote(nom));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(activerStats(), nomJmx);
+		return nomJmx;
+	}
+
+	// Recherches par lot
+
+	/**
+	 * Recherche chaque clé de sondes. Si les sondes sont triées selon l'ordre
+	 * de l'arbre, chaque recherche part du noeud où s'est arrêtée la
+	 * précédente au lieu de la racine : m recherches coûtent alors
+	 * O(m log(n/m)) plutôt que O(m log n). Des sondes non triées donnent le
+	 * même résultat, chaque sonde plus petite que la précédente repartant de
+	 * la racine.
+	 * 
+	 * @param sondes
+	 *            les clés à chercher, de préférence dans l'ordre
+	 * @return l'ensemble des indices (dans l'ordre de sondes) des clés
+	 *         présentes
+	 */
+	@SuppressWarnings("unchecked")
+	public BitSet rechercherTries( Iterable<?> sondes ) 
+	{
+		BitSet trouvees = new BitSet();
+		if( racine == sentinelle ) 
+			return trouvees;
+
+		Doigt doigt = new Doigt();
+		int i = 0;
+		for( Object sonde : sondes ) 
+		{
+			if( doigt.chercher((E) sonde) ) 
+				trouvees.set(i);
+			i++;
+		}
+		return trouvees;
+	}
+
+	/**
+	 * Recherche à partir du dernier noeud atteint (recherche « au doigt »),
+	 * pour des clés croissantes. L'arbre ne doit pas être vide ni modifié
+	 * entre deux recherches.
+	 */
+	private class Doigt
+	{
+		private Noeud noeud = racine;
+		private E prec;
+
+		/**
+		 * Cherche x. Le sous-arbre du dernier noeud atteint contient les clés
+		 * entre la précédente et la clé du premier ancêtre dont il est dans
+		 * le sous-arbre gauche : on remonte seulement jusqu'à ce que x soit
+		 * inférieure à cette borne, puis on redescend.
+		 * 
+		 * @return true si x est dans l'arbre
+		 */
+		boolean chercher( E x ) 
+		{
+			Noeud v = noeud;
+			if( prec == null || cmp.compare(x, prec) < 0 ) 
+				v = racine;
+			else 
+			{
+				while( v.pere != sentinelle ) 
+				{
+					Noeud p = v.pere;
+					if( v == p.gauche && cmp.compare(x, p.cle) < 0 ) 
+						break;
+					v = p;
+				}
+			}
+			prec = x;
+
+			while( true ) 
+			{
+				int c = cmp.compare(x, v.cle);
+				if( c == 0 ) 
+				{
+					noeud = v;
+					return true;
+				}
+				Noeud fils = c < 0 ? v.gauche : v.droit;
+				if( fils == sentinelle ) 
+				{
+					noeud = v;
+					return false;
+				}
+				v = fils;
+			}
+		}
+	}
+
+	// Rangs
+
+	/**
+	 * Renvoie l'élément de rang k, c'est-à-dire le (k+1)-ième élément dans
+	 * l'ordre de l'arbre, doublons compris. Coûte O(log n).
+	 * 
+	 * @param k
+	 *            le rang de l'élément, entre 0 et size() - 1
+	 * @return l'élément de rang k
+	 * @throws IndexOutOfBoundsException
+	 *             si k n'est pas un rang valide
+	 */
+	public E select(int k) 
+	{
+		if( k < 0 || k >= taille ) 
+			throw new IndexOutOfBoundsException("rang " + k + ", taille " + taille);
+
+		Noeud x = racine;
+		int g;
+		while( k < (g = x.gauche.nombre) || k >= g + x.occurrences ) 
+		{
+			if( k < g ) 
+				x = x.gauche;
+			else
+			{
+				k -= g + x.occurrences;
+				x = x.droit;
+			}
+		}
+		return x.cle;
+	}
+
+	/**
+	 * Accès par indice, synonyme de {@link #select(int)}
+	 */
+	public E get(int index) 
+	{
+		return select(index);
+	}
+
+	/**
+	 * Renvoie le nombre d'éléments strictement inférieurs à e, qui est aussi
+	 * le rang de la première occurrence de e s'il est présent. Coûte
+	 * O(log n).
+	 * 
+	 * @param e
+	 *            l'élément cherché, qui n'a pas besoin d'être dans l'arbre
+	 * @return le rang de e
+	 */
+	public int rank(E e) 
+	{
+		return compter(e, false);
+	}
+
+	/**
+	 * Renvoie le nombre d'occurrences de e. Coûte O(log n).
+	 * 
+	 * @param e
+	 *            l'élément cherché
+	 * @return le nombre d'éléments égaux à e, 0 s'il est absent
+	 */
+	public int count(E e) 
+	{
+		if( multiensemble ) 
+		{
+			Noeud x = rechercher(e);
+			return x == sentinelle ? 0 : x.occurrences;
+		}
+		return compter(e, true) - compter(e, false);
+	}
+
+	/**
+	 * Renvoie le nombre de clés distinctes. Coûte O(1) en mode multiensemble,
+	 * O(n) sinon.
+	 * 
+	 * @return le nombre de clés distinctes
+	 */
+	public int distinctSize() 
+	{
+		if( multiensemble ) 
+			return distincts;
+		int d = 0;
+		E prec = null;
+		for(Noeud x = noeudMin; x != sentinelle; x = x.suivant()) 
+		{
+			if( d == 0 || cmp.compare(prec, x.cle) != 0 ) 
+				d++;
+			prec = x.cle;
+		}
+		return d;
+	}
+
+	/**
+	 * Renvoie le nombre d'éléments strictement inférieurs à e, ou inférieurs
+	 * ou égaux si inclus
+	 */
+	private int compter( E e, boolean inclus ) 
+	{
+		int r = 0;
+		Noeud x = racine;
+		while( x != sentinelle ) 
+		{
+			int c = cmp.compare(e, x.cle);
+			if( c > 0 || (inclus && c == 0) ) 
+			{
+				r += x.gauche.nombre + x.occurrences;
+				x = x.droit;
+			} else
+				x = x.gauche;
+		}
+		return r;
+	}
+
+	/**
+	 * Renvoie le rang du noeud x en remontant jusqu'à la racine
+	 */
+	private int rang( Noeud x ) 
+	{
+		int r = x.gauche.nombre;
+		for(; x.pere != sentinelle; x = x.pere)
+			if( x == x.pere.droit ) r += x.pere.gauche.nombre + x.pere.occurrences;
+		return r;
+	}
+
+	// Navigation
+
+	/**
+	 * Renvoie le dernier noeud de clé strictement inférieure à e (inférieure
+	 * ou égale si inclus), la sentinelle s'il n'y en a pas
+	 */
+	private Noeud plancher( E e, boolean inclus ) 
+	{
+		Noeud x = racine, res = sentinelle;
+		while( x != sentinelle ) 
+		{
+			int c = cmp.compare(e, x.cle);
+			if( c > 0 || (inclus && c == 0) ) 
+			{
+				res = x;
+				x = x.droit;
+			} else
+				x = x.gauche;
+		}
+		return res;
+	}
+
+	/**
+	 * Renvoie le premier noeud de clé strictement supérieure à e (supérieure
+	 * ou égale si inclus), la sentinelle s'il n'y en a pas
+	 */
+	private Noeud plafond( E e, boolean inclus ) 
+	{
+		Noeud x = racine, res = sentinelle;
+		while( x != sentinelle ) 
+		{
+			int c = cmp.compare(e, x.cle);
+			if( c < 0 || (inclus && c == 0) ) 
+			{
+				res = x;
+				x = x.gauche;
+			} else
+				x = x.droit;
+		}
+		return res;
+	}
+
+	private E cle( Noeud x ) 
+	{
+		return x == sentinelle ? null : x.cle;
+	}
+
+	/**
+	 * Supprime le noeud x et renvoie sa clé, null si x est la sentinelle
+	 */
+	private E extraire( Noeud x ) 
+	{
+		if( x == sentinelle ) 
+			return null;
+		E e = x.cle;
+		retirerUne(x);
+		return e;
+	}
+
+	public E lower(E e) {return cle(plancher(e, false));}
+
+	public E floor(E e) {return cle(plancher(e, true));}
+
+	public E ceiling(E e) {return cle(plafond(e, true));}
+
+	public E higher(E e) {return cle(plafond(e, false));}
+
+	public E first() 
+	{
+		if( racine == sentinelle ) throw new NoSuchElementException();
+		return noeudMin.cle;
+	}
+
+	public E last() 
+	{
+		if( racine == sentinelle ) throw new NoSuchElementException();
+		return noeudMax.cle;
+	}
+
+	public E pollFirst() 
+	{
+		return racine == sentinelle ? null : extraire(noeudMin);
+	}
+
+	public E pollLast() 
+	{
+		return racine == sentinelle ? null : extraire(noeudMax);
+	}
+
+	/**
+	 * Renvoie le comparateur de l'arbre, null pour l'ordre naturel
+	 */
+	public Comparator<? super E> comparator() 
+	{
+		return cmp.equals(Comparator.naturalOrder()) ? null : cmp;
+	}
+
+	// Vues
+
+	private Vue entier() {return new Vue(null, true, true, null, true, true, false);}
+
+	public NavigableSet<E> descendingSet() {return entier().descendingSet();}
+
+	public Iterator<E> descendingIterator() {return entier().descendingIterator();}
+
+	public NavigableSet<E> subSet(E de, boolean deInclus, E a, boolean aInclus) 
+	{
+		return entier().subSet(de, deInclus, a, aInclus);
+	}
+
+	public NavigableSet<E> headSet(E a, boolean inclus) {return entier().headSet(a, inclus);}
+
+	public NavigableSet<E> tailSet(E de, boolean inclus) {return entier().tailSet(de, inclus);}
+
+	public SortedSet<E> subSet(E de, E a) {return subSet(de, true, a, false);}
+
+	public SortedSet<E> headSet(E a) {return headSet(a, false);}
+
+	public SortedSet<E> tailSet(E de) {return tailSet(de, true);}
+
+	/**
+	 * <p>
+	 * Vue d'une partie de l'arbre, entre deux bornes éventuelles, dans l'ordre
+	 * croissant ou décroissant. Les modifications de la vue sont faites dans
+	 * l'arbre et réciproquement.
+	 * </p>
+	 * 
+	 * <p>
+	 * Les bornes sont toujours exprimées dans l'ordre de l'arbre. Le premier
+	 * et le dernier élément sont trouvés en O(log n) avec
+	 * {@link ANR#plafond} et {@link ANR#plancher}, la taille avec
+	 * {@link ANR#compter} : parcourir k éléments coûte O(log n + k).
+	 * </p>
+	 */
+	private class Vue extends AbstractSet<E> implements NavigableSet<E>
+	{
+		final E bas, haut;
+		final boolean depuisDebut, jusquAFin, basInclus, hautInclus;
+		final boolean decroissant;
+
+		Vue( E bas, boolean depuisDebut, boolean basInclus, E haut, boolean jusquAFin, boolean hautInclus, boolean decroissant ) 
+		{
+			if( !depuisDebut && !jusquAFin && cmp.compare(bas, haut) > 0 ) 
+				throw new IllegalArgumentException("borne inférieure supérieure à la borne supérieure");
+			this.bas = bas;
+			this.depuisDebut = depuisDebut;
+			this.basInclus = basInclus;
+			this.haut = haut;
+			this.jusquAFin = jusquAFin;
+			this.hautInclus = hautInclus;
+			this.decroissant = decroissant;
+		}
+
+		// Bornes, dans l'ordre de l'arbre
+
+		/**
+		 * Teste si e est sous la borne inférieure. Si inclus est faux, e est
+		 * une borne exclue et peut être égal à une borne inférieure exclue.
+		 */
+		private boolean tropBas( E e, boolean inclus ) 
+		{
+			if( depuisDebut ) 
+				return false;
+			int c = cmp.compare(e, bas);
+			return c < 0 || (c == 0 && inclus && !basInclus);
+		}
+
+		private boolean tropHaut( E e, boolean inclus ) 
+		{
+			if( jusquAFin ) 
+				return false;
+			int c = cmp.compare(e, haut);
+			return c > 0 || (c == 0 && inclus && !hautInclus);
+		}
+
+		private boolean dansVue( E e ) 
+		{
+			return !tropBas(e, true) && !tropHaut(e, true);
+		}
+
+		/**
+		 * Renvoie le noeud de plus petite clé de la vue, la sentinelle si elle
+		 * est vide
+		 */
+		private Noeud plusPetit() 
+		{
+			Noeud x = depuisDebut ? noeudMin : plafond(bas, basInclus);
+			return x == sentinelle || tropHaut(x.cle, true) ? sentinelle : x;
+		}
+
+		private Noeud plusGrand() 
+		{
+			Noeud x = jusquAFin ? noeudMax : plancher(haut, hautInclus);
+			return x == sentinelle || tropBas(x.cle, true) ? sentinelle : x;
+		}
+
+		/**
+		 * Comme {@link ANR#plancher}, limité à la vue
+		 */
+		private Noeud plancherVue( E e, boolean inclus ) 
+		{
+			Noeud x = plancher(e, inclus);
+			if( x != sentinelle && tropHaut(x.cle, true) ) 
+				x = plusGrand();
+			return x == sentinelle || tropBas(x.cle, true) ? sentinelle : x;
+		}
+
+		private Noeud plafondVue( E e, boolean inclus ) 
+		{
+			Noeud x = plafond(e, inclus);
+			if( x != sentinelle && tropBas(x.cle, true) ) 
+				x = plusPetit();
+			return x == sentinelle || tropHaut(x.cle, true) ? sentinelle : x;
+		}
+
+		/**
+		 * Crée une vue plus petite, de même sens. Une borne absente garde
+		 * la valeur de cette vue.
+		 */
+		private Vue restreindre( E b, boolean aBas, boolean bInclus, E h, boolean aHaut, boolean hInclus ) 
+		{
+			if( aBas && (tropBas(b, bInclus) || tropHaut(b, bInclus)) ) 
+				throw new IllegalArgumentException("borne hors de la vue : " + b);
+			if( aHaut && (tropBas(h, hInclus) || tropHaut(h, hInclus)) ) 
+				throw new IllegalArgumentException("borne hors de la vue : " + h);
+
+			return new Vue(aBas ? b : bas, aBas ? false : depuisDebut, aBas ? bInclus : basInclus,
+					aHaut ? h : haut, aHaut ? false : jusquAFin, aHaut ? hInclus : hautInclus, decroissant);
+		}
+
+		// Méthodes de Collection
+
+		@Override
+		public Iterator<E> iterator() {return new VueIterator(decroissant);}
+
+		public Iterator<E> descendingIterator() {return new VueIterator(!decroissant);}
+
+		@Override
+		public int size() 
+		{
+			int fin = jusquAFin ? taille : compter(haut, hautInclus);
+			int debut = depuisDebut ? 0 : compter(bas, !basInclus);
+			return Math.max(0, fin - debut);
+		}
+
+		@Override
+		public boolean isEmpty() {return plusPetit() == sentinelle;}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean contains(Object o) 
+		{
+			return dansVue((E) o) && ANR.this.contains(o);
+		}
+
+		@Override
+		public boolean add(E e) 
+		{
+			if( !dansVue(e) ) 
+				throw new IllegalArgumentException("clé hors de la vue : " + e);
+			return ANR.this.add(e);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean remove(Object o) 
+		{
+			return dansVue((E) o) && ANR.this.remove(o);
+		}
+
+		// Méthodes de NavigableSet, dans le sens de la vue
+
+		public Comparator<? super E> comparator() 
+		{
+			Comparator<? super E> c = ANR.this.comparator();
+			if( !decroissant ) 
+				return c;
+			return c == null ? Collections.reverseOrder() : Collections.reverseOrder(c);
+		}
+
+		public E first() 
+		{
+			Noeud x = decroissant ? plusGrand() : plusPetit();
+			if( x == sentinelle ) throw new NoSuchElementException();
+			return x.cle;
+		}
+
+		public E last() 
+		{
+			Noeud x = decroissant ? plusPetit() : plusGrand();
+			if( x == sentinelle ) throw new NoSuchElementException();
+			return x.cle;
+		}
+
+		public E pollFirst() {return extraire(decroissant ? plusGrand() : plusPetit());}
+
+		public E pollLast() {return extraire(decroissant ? plusPetit() : plusGrand());}
+
+		public E lower(E e) {return cle(decroissant ? plafondVue(e, false) : plancherVue(e, false));}
+
+		public E floor(E e) {return cle(decroissant ? plafondVue(e, true) : plancherVue(e, true));}
+
+		public E ceiling(E e) {return cle(decroissant ? plancherVue(e, true) : plafondVue(e, true));}
+
+		public E higher(E e) {return cle(decroissant ? plancherVue(e, false) : plafondVue(e, false));}
+
+		public NavigableSet<E> descendingSet() 
+		{
+			return new Vue(bas, depuisDebut, basInclus, haut, jusquAFin, hautInclus, !decroissant);
+		}
+
+		public NavigableSet<E> subSet(E de, boolean deInclus, E a, boolean aInclus) 
+		{
+			if( decroissant ) 
+				return restreindre(a, true, aInclus, de, true, deInclus);
+			return restreindre(de, true, deInclus, a, true, aInclus);
+		}
+
+		public NavigableSet<E> headSet(E a, boolean inclus) 
+		{
+			if( decroissant ) 
+				return restreindre(a, true, inclus, null, false, false);
+			return restreindre(null, false, false, a, true, inclus);
+		}
+
+		public NavigableSet<E> tailSet(E de, boolean inclus) 
+		{
+			if( decroissant ) 
+				return restreindre(null, false, false, de, true, inclus);
+			return restreindre(de, true, inclus, null, false, false);
+		}
+
+		public SortedSet<E> subSet(E de, E a) {return subSet(de, true, a, false);}
+
+		public SortedSet<E> headSet(E a) {return headSet(a, false);}
+
+		public SortedSet<E> tailSet(E de) {return tailSet(de, true);}
+
+		/**
+		 * Itérateur de la vue, qui part du premier noeud de la vue et
+		 * s'arrête à la première clé hors de la vue
+		 */
+		private class VueIterator implements Iterator<E> 
+		{
+			private final boolean descendant;
+			private Noeud suiv, prec;
+			// occurrences de suiv déjà parcourues
+			private int deja;
+
+			VueIterator( boolean descendant ) 
+			{
+				this.descendant = descendant;
+				prec = sentinelle;
+				suiv = descendant ? plusGrand() : plusPetit();
+			}
+
+			public boolean hasNext() 
+			{
+				return suiv != sentinelle;
+			}
+
+			public E next() 
+			{
+				if( suiv == sentinelle ) throw new NoSuchElementException();
+				prec = suiv;
+				if( ++deja < suiv.occurrences ) 
+					return prec.cle;
+				deja = 0;
+				suiv = descendant ? suiv.precedent() : suiv.suivant();
+				if( suiv != sentinelle && (descendant ? tropBas(suiv.cle, true) : tropHaut(suiv.cle, true)) ) 
+					suiv = sentinelle;
+				return prec.cle;
+			}
+
+			public void remove() 
+			{
+				if( prec == sentinelle ) throw new IllegalStateException();
+				if( prec.occurrences > 1 ) 
+				{
+					retirerUne(prec);
+					if( suiv == prec ) deja--;
+					prec = sentinelle;
+					return;
+				}
+				// supprimer peut déplacer la clé du successeur dans prec,
+				// mais ne touche jamais au prédécesseur
+				Noeud svt = supprimer(prec);
+				if( !descendant && suiv != sentinelle ) 
+					suiv = svt;
+				prec = sentinelle;
+			}
+		}
+	}
+
+	// Égalité au sens de Set
+
+	@Override
+	public boolean equals(Object o) 
+	{
+		if( o == this ) 
+			return true;
+		if( !(o instanceof Set) ) 
+			return false;
+		Collection<?> c = (Collection<?>) o;
+		try
+		{
+			return c.size() == size() && containsAll(c);
+		} catch( ClassCastException | NullPointerException e ) 
+		{
+			return false;
+		}
+	}
+
+	@Override
+	public int hashCode() 
+	{
+		int h = 0;
+		for(E e : this) 
+			h += e.hashCode();
+		return h;
+	}
+
+	/**
+	 * Supprime toutes les occurrences des éléments de c. Si c est un ANR de
+	 * même comparateur, utilise {@link #difference(ANR)}
+	 */
+	@SuppressWarnings("unchecked")
 	public boolean removeAll(Collection<?> c) 
 	{
+		if( c instanceof ANR && ((ANR<?>) c).cmp.equals(cmp) && !multiensemble && !((ANR<?>) c).multiensemble ) 
+			return difference((ANR<? extends E>) c);
+
+		boolean modifie = false;
+		for(Object o : c) 
+		{
+			Noeud n;
+			while( (n = rechercher(o)) != sentinelle ) 
+			{
+				supprimer(n);
+				modifie = true;
+			}
+		}
+		
+		return modifie;
+	}
+
+	/**
+	 * Ne garde que les éléments contenus dans c. Si c est un ANR de même
+	 * comparateur, utilise {@link #intersection(ANR)}
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean retainAll(Collection<?> c) 
+	{
+		if( c instanceof ANR && ((ANR<?>) c).cmp.equals(cmp) && !multiensemble && !((ANR<?>) c).multiensemble ) 
+			return intersection((ANR<? extends E>) c);
+
+		return super.retainAll(c);
+	}
+
+	// Opérations ensemblistes par jointure et découpage
+
+	/**
+	 * Ajoute à l'arbre tous les éléments de autre (comme {@link #addAll}, les
+	 * doublons sont conservés). Les deux arbres doivent avoir le même
+	 * comparateur. Coûte O(m log(n/m + 1)) où m est la taille du plus petit
+	 * arbre, au lieu de O(m log n) ajouts avec rééquilibrage.
+	 * 
+	 * @param autre
+	 *            l'arbre dont les éléments sont ajoutés, qui n'est pas modifié
+	 * @return true si l'arbre a été modifié
+	 */
+	public boolean union( ANR<? extends E> autre ) 
+	{
+		return union(autre, 0);
+	}
 
-		for(Object o : c) 
+	@SuppressWarnings("unchecked")
+	private boolean union( ANR<? extends E> autre, int profondeur ) 
+	{
+		if( autre.isEmpty() ) 
+			return false;
+		if( autre == this && multiensemble ) 
 		{
-			Noeud n = rechercher(o);
-			if( n == sentinelle ) 
-				return false;
-			
-			supprimer(n);
+			// l'itérateur ne s'arrêterait pas, les occurrences augmentant
+			// pendant le parcours : elles sont doublées directement
+			for(Noeud x = noeudMin; x != sentinelle; x = x.suivant()) 
+			{
+				x.occurrences *= 2;
+				x.nombre *= 2;
+			}
+			taille *= 2;
+			return true;
 		}
-		
+		if( !autre.cmp.equals(cmp) || multiensemble || autre.multiensemble ) 
+		{
+			for(E element : autre) ajouter(new Noeud(element));
+			return true;
+		}
+		ANR<E> a = (ANR<E>) autre;
+		if( autre == this ) 
+		{
+			// copie de même ordre, construite en temps linéaire
+			a = new ANR<E>(cmp);
+			a.addAll(this);
+		}
+
+		Noeud t = racine;
+		racine = sentinelle;
+		racine = executer(new Tache(a, 'U', t, hauteurNoire(t), a.racine, profondeur));
+		taille = racine.nombre;
+		bornes();
 		return true;
 	}
-	
-	public Object[] toArray() 
+
+	/**
+	 * Ne garde dans l'arbre que les éléments dont la clé est dans autre
+	 * (comme {@link #retainAll}). Les deux arbres doivent avoir le même
+	 * comparateur.
+	 * 
+	 * @param autre
+	 *            l'arbre des clés à garder, qui n'est pas modifié
+	 * @return true si l'arbre a été modifié
+	 */
+	public boolean intersection( ANR<? extends E> autre ) 
 	{
-		Object[] objets = new Object[size()];
-		Iterator i = iterator();
-		int cpt = 0;
+		return intersection(autre, 0);
+	}
 
-		while( i.hasNext() ) {
-			objets[cpt++] = i.next();
+	@SuppressWarnings("unchecked")
+	private boolean intersection( ANR<? extends E> autre, int profondeur ) 
+	{
+		if( autre == this ) 
+			return false;
+		if( !autre.cmp.equals(cmp) || multiensemble || autre.multiensemble ) 
+			return super.retainAll(autre);
+
+		int n = taille;
+		Noeud t = racine;
+		racine = sentinelle;
+		ANR<E> a = (ANR<E>) autre;
+		racine = executer(new Tache(a, 'I', t, hauteurNoire(t), a.racine, profondeur));
+		taille = racine.nombre;
+		bornes();
+		return taille != n;
+	}
+
+	/**
+	 * Supprime de l'arbre tous les éléments dont la clé est dans autre (comme
+	 * {@link #removeAll}). Les deux arbres doivent avoir le même comparateur.
+	 * 
+	 * @param autre
+	 *            l'arbre des clés à supprimer, qui n'est pas modifié
+	 * @return true si l'arbre a été modifié
+	 */
+	public boolean difference( ANR<? extends E> autre ) 
+	{
+		return difference(autre, 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean difference( ANR<? extends E> autre, int profondeur ) 
+	{
+		if( autre == this ) 
+		{
+			boolean modifie = !isEmpty();
+			clear();
+			return modifie;
 		}
-		
-		return objets;
+		if( !autre.cmp.equals(cmp) || multiensemble || autre.multiensemble ) 
+			return super.removeAll(autre);
+
+		int n = taille;
+		Noeud t = racine;
+		racine = sentinelle;
+		ANR<E> a = (ANR<E>) autre;
+		racine = executer(new Tache(a, 'D', t, hauteurNoire(t), a.racine, profondeur));
+		taille = racine.nombre;
+		bornes();
+		return taille != n;
 	}
-	
-	public static void main(String[] args) 
-	{
-		Scanner myObj = new Scanner(System.in);
-		String choixDeTest;  
-		final int longeurStringPourLeTE = 10;  //Je trouvais ça moche de le mettre en Upper
-		do{
-			System.out.println("Taper 1 pour tester les différents cas");
-			System.out.println("Taper 2 pour tester le temps d'execution du programme avec des strings");
-			System.out.println("Taper 3 pour tester le temps d'execution du programme avec des ints");
-			System.out.print("Quel est votre choix : ");
-			choixDeTest = myObj.nextLine();
 
-		
-			System.out.println(); // Pour faire joli
+	private int hauteurNoire( Noeud x ) 
+	{
+		int h = 0;
+		for(; x != sentinelle; x = x.gauche)
+			if( x.couleur == 'N' ) h++;
+		return h;
+	}
+
+	/**
+	 * <p>
+	 * Une opération ensembliste entre cet arbre et autre. Les algorithmes
+	 * travaillent sur des sous-arbres détachés : le père de leur racine est la
+	 * sentinelle et leur racine est noire. Pendant l'opération la racine de
+	 * l'arbre vaut la sentinelle, les rotations ne la modifient donc pas.
+	 * </p>
+	 * 
+	 * <p>
+	 * Pour ne pas allouer d'objet à chaque niveau, les méthodes renvoient la
+	 * racine du sous-arbre obtenu et rangent sa hauteur noire (le nombre de
+	 * noeuds noirs sur un chemin de la racine à une feuille) dans le champ h.
+	 * Le découpage range ses trois résultats dans les champs inf, ega et sup.
+	 * </p>
+	 */
+	private class Operation
+	{
+		final ANR<E> autre;
 
+		// hauteur noire du dernier sous-arbre renvoyé
+		int h;
+		// résultat du dernier découpage
+		Noeud inf, ega, sup;
+		int hInf, hEga, hSup;
 
-		}while(!choixDeTest.equals("1") && !choixDeTest.equals("2")&& !choixDeTest.equals("3"));
+		Operation( ANR<E> autre ) 
+		{
+			this.autre = autre;
+		}
 
-		if(choixDeTest.equals("1"))  //Sert à tester les différents cas pouvant être rencontrés
+		Noeud unir( Noeud t, int ht, Noeud x ) 
 		{
-			ArrayList<String> list = new ArrayList<>();
+			if( x == autre.sentinelle ) 
+			{
+				h = ht;
+				return t;
+			}
+			if( t == sentinelle ) 
+				return copier(x);
+
+			decouper(t, ht, x.cle);
+			Noeud egaux = ega, superieurs = sup;
+			int hEgaux = hEga, hSuperieurs = hSup;
+
+			Noeud gauche = unir(inf, hInf, x.gauche);
+			int hGauche = h;
+			Noeud droit = joindre(egaux, hEgaux, superieurs, hSuperieurs);
+			droit = unir(droit, h, x.droit);
+			return joindre(gauche, hGauche, new Noeud(x.cle), droit, h);
+		}
 
-			list.add("g");
-			list.add("u");
-			list.add("x");
-			list.add("e");
-			list.add("h");
-			list.add("t");
-			list.add("k");
-			list.add("z");
-			list.add("m");
-			list.add("a");
-			list.add("j");
-			
-			Collection<String> anr = new ANR<>(list);
-			String border = "====================================================";
+		Noeud intersecter( Noeud t, int ht, Noeud x ) 
+		{
+			if( t == sentinelle || x == autre.sentinelle ) 
+			{
+				h = 0;
+				return sentinelle;
+			}
+
+			decouper(t, ht, x.cle);
+			Noeud egaux = ega, superieurs = sup;
+			int hEgaux = hEga, hSuperieurs = hSup;
+
+			Noeud gauche = intersecter(inf, hInf, x.gauche);
+			int hGauche = h;
+			Noeud droit = intersecter(superieurs, hSuperieurs, x.droit);
+			int hDroit = h;
+
+			gauche = joindre(gauche, hGauche, egaux, hEgaux);
+			return joindre(gauche, h, droit, hDroit);
+		}
+
+		Noeud soustraire( Noeud t, int ht, Noeud x ) 
+		{
+			if( t == sentinelle || x == autre.sentinelle ) 
+			{
+				h = ht;
+				return t;
+			}
+
+			decouper(t, ht, x.cle);
+			Noeud superieurs = sup;
+			int hSuperieurs = hSup;
+
+			Noeud gauche = soustraire(inf, hInf, x.gauche);
+			int hGauche = h;
+			Noeud droit = soustraire(superieurs, hSuperieurs, x.droit);
+			return joindre(gauche, hGauche, droit, h);
+		}
+
+		/**
+		 * Comme {@link #unir}, mais les deux appels récursifs sont faits en
+		 * parallèle tant que la profondeur n'est pas nulle. Ils portent sur
+		 * des noeuds disjoints et n'écrivent jamais dans la sentinelle.
+		 */
+		Noeud unirParallele( Noeud t, int ht, Noeud x, int profondeur ) 
+		{
+			if( profondeur == 0 || t == sentinelle || x == autre.sentinelle ) 
+				return unir(t, ht, x);
+
+			decouper(t, ht, x.cle);
+			Noeud inferieurs = inf;
+			int hInferieurs = hInf;
+			Noeud droit = joindre(ega, hEga, sup, hSup);
+
+			Tache gauche = new Tache(autre, 'U', inferieurs, hInferieurs, x.gauche, profondeur - 1);
+			gauche.fork();
+			droit = unirParallele(droit, h, x.droit, profondeur - 1);
+			int hDroit = h;
+			Noeud g = gauche.join();
+			return joindre(g, gauche.op.h, new Noeud(x.cle), droit, hDroit);
+		}
 
-			System.out.println(border);
-			System.out.println("     Test 00: Affichage normal de l'arbre       \n");	
-			System.out.println(anr);
+		Noeud intersecterParallele( Noeud t, int ht, Noeud x, int profondeur ) 
+		{
+			if( profondeur == 0 || t == sentinelle || x == autre.sentinelle ) 
+				return intersecter(t, ht, x);
 
-			System.out.println(border);
-			System.out.println("  Test 01: Supprimer un noeud avec deux feuille (g)  \n");	
-			anr.remove("g");
-			System.out.println(anr);
+			decouper(t, ht, x.cle);
+			Noeud egaux = ega, superieurs = sup;
+			int hEgaux = hEga, hSuperieurs = hSup;
 
-			System.out.println(border);
-			System.out.println("       Test 02: Supprimer une feuille (m)      \n");	
-			anr.remove("m");
-			System.out.println(anr);
+			Tache gauche = new Tache(autre, 'I', inf, hInf, x.gauche, profondeur - 1);
+			gauche.fork();
+			Noeud droit = intersecterParallele(superieurs, hSuperieurs, x.droit, profondeur - 1);
+			int hDroit = h;
+			Noeud g = gauche.join();
 
-			System.out.println(border);
-			System.out.println("  Test 03: Supprimer un noeud avec une feuille (x)  \n");	
-			anr.remove("x");
-			System.out.println(anr);
+			g = joindre(g, gauche.op.h, egaux, hEgaux);
+			return joindre(g, h, droit, hDroit);
+		}
 
+		Noeud soustraireParallele( Noeud t, int ht, Noeud x, int profondeur ) 
+		{
+			if( profondeur == 0 || t == sentinelle || x == autre.sentinelle ) 
+				return soustraire(t, ht, x);
+
+			decouper(t, ht, x.cle);
+			Noeud superieurs = sup;
+			int hSuperieurs = hSup;
+
+			Tache gauche = new Tache(autre, 'D', inf, hInf, x.gauche, profondeur - 1);
+			gauche.fork();
+			Noeud droit = soustraireParallele(superieurs, hSuperieurs, x.droit, profondeur - 1);
+			int hDroit = h;
+			Noeud g = gauche.join();
+			return joindre(g, gauche.op.h, droit, hDroit);
+		}
 
-			System.out.println(border);
-			System.out.println("       Test 04: Supprimer la racine  (k)        \n");	
-			anr.remove("k");
-			System.out.println(anr);
-			System.out.println(border);
+		/**
+		 * Recopie dans cet arbre le sous-arbre de autre enraciné en x, avec la
+		 * même forme et les mêmes couleurs
+		 */
+		Noeud copier( Noeud x ) 
+		{
+			Noeud copie = recopier(x);
+			h = hauteurNoire(copie) + noircir(copie);
+			return copie;
+		}
 
+		private Noeud recopier( Noeud x ) 
+		{
+			if( x == autre.sentinelle ) 
+				return sentinelle;
+			Noeud copie = new Noeud(x.cle, x.couleur);
+			lier(copie, recopier(x.gauche), recopier(x.droit));
+			copie.pere = sentinelle;
+			return copie;
 		}
 
-		if(choixDeTest.equals("2"))  //Sert à calculer la vitesse d'execution du programme avec des string
+		/**
+		 * Découpe le sous-arbre t, de hauteur noire ht, selon la clé en
+		 * O(log n) : inf reçoit les clés strictement inférieures, ega les clés
+		 * égales et sup les clés strictement supérieures. Les noeuds de t sont
+		 * réutilisés.
+		 */
+		void decouper( Noeud x, int ht, E cle ) 
 		{
+			if( x == sentinelle ) 
+			{
+				inf = ega = sup = sentinelle;
+				hInf = hEga = hSup = 0;
+				return;
+			}
 
-			System.out.println("Nombre d'ajout | Temps d'execution");
-			long start = System.currentTimeMillis(); //Permettre le calcul du temps d'exec
-			int totAjout = 10000000 ; // 100 million
-			ANR<String> arbre = new ANR<>();
+			// hauteur noire des fils de x, une fois détachés et noircis
+			int hf = ht - (x.couleur == 'N' ? 1 : 0);
+			Noeud gauche = x.gauche, droit = x.droit;
+			int hGauche = hf + noircir(gauche), hDroit = hf + noircir(droit);
+			x.gauche = x.droit = sentinelle;
 
-			for(int nbAjout=0;nbAjout<totAjout;nbAjout++)
+			int compare = cmp.compare(cle, x.cle);
+			if( compare < 0 ) 
+			{
+				decouper(gauche, hGauche, cle);
+				sup = joindre(sup, hSup, x, droit, hDroit);
+				hSup = h;
+			} else if( compare > 0 ) 
+			{
+				decouper(droit, hDroit, cle);
+				inf = joindre(gauche, hGauche, x, inf, hInf);
+				hInf = h;
+			} else 
+			{
+				// les doublons de la clé peuvent être des deux côtés
+				decouper(gauche, hGauche, cle);
+				Noeud inferieurs = inf, egauxGauche = ega;
+				int hInferieurs = hInf, hEgauxGauche = hEga;
+				decouper(droit, hDroit, cle);
+				ega = joindre(egauxGauche, hEgauxGauche, x, ega, hEga);
+				hEga = h;
+				inf = inferieurs;
+				hInf = hInferieurs;
+			}
+		}
+
+		/**
+		 * Joint g, le noeud k et d, où toutes les clés de g sont inférieures
+		 * ou égales à celle de k et toutes celles de d supérieures ou égales.
+		 * Coûte O(|hg - hd| + 1).
+		 */
+		Noeud joindre( Noeud g, int hg, Noeud k, Noeud d, int hd ) 
+		{
+			k.pere = sentinelle;
+			if( hg == hd ) 
 			{
-				arbre.add(RandomString(longeurStringPourLeTE));
+				lier(k, g, d);
+				k.couleur = 'N';
+				h = hg + 1;
+				return k;
+			}
 
-				if(nbAjout%100000 ==0 )
+			Noeud haut;
+			if( hg > hd ) 
+			{
+				// descente sur le bord droit de g jusqu'à un noeud noir de
+				// même hauteur noire que d
+				haut = g;
+				int hc = hg;
+				Noeud p = sentinelle, c = g;
+				while( c.couleur == 'R' || hc > hd ) 
+				{
+					if( c.couleur == 'N' ) hc--;
+					p = c;
+					c = c.droit;
+				}
+				lier(k, c, d);
+				k.pere = p;
+				p.droit = k;
+				for(Noeud q = p; q != sentinelle; q = q.pere)
+					q.nombre += d.nombre + 1;
+			} else 
+			{
+				haut = d;
+				int hc = hd;
+				Noeud p = sentinelle, c = d;
+				while( c.couleur == 'R' || hc > hg ) 
 				{
-					long tempsActuel = System.currentTimeMillis() - start;
-					System.out.println(nbAjout +" , "+ tempsActuel); //Utile pour faire un doc permettant de tracer la courbe d'ou la virgule
+					if( c.couleur == 'N' ) hc--;
+					p = c;
+					c = c.gauche;
 				}
-			}			
+				lier(k, g, c);
+				k.pere = p;
+				p.gauche = k;
+				for(Noeud q = p; q != sentinelle; q = q.pere)
+					q.nombre += g.nombre + 1;
+			}
+			h = Math.max(hg, hd);
+			k.couleur = 'R';
+			corrigerRougeRouge(k);
+
+			// une rotation a pu faire descendre la racine d'un niveau
+			while( haut.pere != sentinelle ) haut = haut.pere;
+			h += noircir(haut);
+			return haut;
+		}
+
+		/**
+		 * Joint g et d, où toutes les clés de g sont inférieures ou égales à
+		 * celles de d, en détachant le maximum de g pour servir de noeud
+		 * central
+		 */
+		Noeud joindre( Noeud g, int hg, Noeud d, int hd ) 
+		{
+			if( g == sentinelle ) 
+			{
+				h = hd;
+				return d;
+			}
+			if( d == sentinelle ) 
+			{
+				h = hg;
+				return g;
+			}
+
+			g = detacherMaximum(g, hg);
+			return joindre(g, h, max, d, hd);
+		}
+
+		// le noeud détaché par detacherMaximum
+		private Noeud max;
+
+		private Noeud detacherMaximum( Noeud x, int ht ) 
+		{
+			int hf = ht - (x.couleur == 'N' ? 1 : 0);
+			Noeud gauche = x.gauche, droit = x.droit;
+			int hGauche = hf + noircir(gauche);
+			x.gauche = x.droit = sentinelle;
+
+			if( droit == sentinelle ) 
+			{
+				max = x;
+				h = hGauche;
+				return gauche;
+			}
+			Noeud reste = detacherMaximum(droit, hf + noircir(droit));
+			Noeud m = max;
+			reste = joindre(gauche, hGauche, x, reste, h);
+			max = m;
+			return reste;
 		}
-		if(choixDeTest.equals("3"))  //Sert à calculer la vitesse d'execution du programme avec des int
+	}
+
+	/**
+	 * Détache le sous-arbre enraciné en x de son père et noircit sa racine
+	 * 
+	 * @return 1 si la racine était rouge (la hauteur noire augmente), 0 sinon
+	 */
+	private int noircir( Noeud x ) 
+	{
+		if( x == sentinelle ) 
+			return 0;
+		x.pere = sentinelle;
+		if( x.couleur == 'R' ) 
 		{
+			x.couleur = 'N';
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Donne à k les fils g et d, et recalcule le nombre de noeuds de son
+	 * sous-arbre
+	 */
+	private void lier( Noeud k, Noeud g, Noeud d ) 
+	{
+		k.gauche = g;
+		if( g != sentinelle ) g.pere = k;
+		k.droit = d;
+		if( d != sentinelle ) d.pere = k;
+		k.nombre = g.nombre + d.nombre + 1;
+	}
+
+	// Opérations parallèles
 
-			System.out.println("Nombre d'ajout | Temps d'execution");
-			long start = System.currentTimeMillis(); //Permettre le calcul du temps d'exec
-			int totAjout = 10000000 ; // 100 million
-			ANR<Integer> arbre = new ANR<>();
+	// En dessous de ce nombre d'éléments, les opérations restent séquentielles
+	private static final int SEUIL_PARALLELE = 1 << 13;
+
+	/**
+	 * Une opération ensembliste (type 'U' pour l'union, 'I' pour
+	 * l'intersection, 'D' pour la différence) sur le sous-arbre t, exécutable
+	 * dans un ForkJoinPool. Chaque tâche a sa propre {@link Operation}, qui
+	 * contient après coup la hauteur noire du résultat.
+	 */
+	private class Tache extends RecursiveTask<Noeud>
+	{
+		private static final long serialVersionUID = 1L;
+
+		final Operation op;
+		final char type;
+		final Noeud t, x;
+		final int ht, profondeur;
+
+		Tache( ANR<E> autre, char type, Noeud t, int ht, Noeud x, int profondeur ) 
+		{
+			this.op = new Operation(autre);
+			this.type = type;
+			this.t = t;
+			this.ht = ht;
+			this.x = x;
+			this.profondeur = profondeur;
+		}
 
-			for(int nbAjout=0;nbAjout<totAjout;nbAjout++)
+		@Override
+		protected Noeud compute() 
+		{
+			switch( type ) 
 			{
-				arbre.add((int)(Math.random()*(10+1)));
+				case 'U': return op.unirParallele(t, ht, x, profondeur);
+				case 'I': return op.intersecterParallele(t, ht, x, profondeur);
+				default: return op.soustraireParallele(t, ht, x, profondeur);
+			}
+		}
+	}
 
-				if(nbAjout%100000 ==0 )
-				{
-					long tempsActuel = System.currentTimeMillis() - start;
-					System.out.println(nbAjout +" , "+ tempsActuel); //Utile pour faire un doc permettant de tracer la courbe d'ou la virgule
-				}
+	/**
+	 * Construit en parallèle le sous-arbre équilibré des éléments
+	 * debut,...,fin (triés), comme {@link #construire}
+	 */
+	private class TacheConstruction extends RecursiveTask<Noeud>
+	{
+		private static final long serialVersionUID = 1L;
+
+		final Object[] elements;
+		final int debut, fin, niveau, niveauRouge;
+
+		TacheConstruction( Object[] elements, int debut, int fin, int niveau, int niveauRouge ) 
+		{
+			this.elements = elements;
+			this.debut = debut;
+			this.fin = fin;
+			this.niveau = niveau;
+			this.niveauRouge = niveauRouge;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected Noeud compute() 
+		{
+			if( fin - debut < SEUIL_PARALLELE ) 
+			{
+				Iterator<Object> it = Arrays.asList(elements).subList(debut, fin + 1).iterator();
+				return construire(it, debut, fin, niveau, niveauRouge);
 			}
+
+			int milieu = (debut + fin) >>> 1;
+			TacheConstruction gauche = new TacheConstruction(elements, debut, milieu - 1, niveau + 1, niveauRouge);
+			gauche.fork();
+			Noeud droit = new TacheConstruction(elements, milieu + 1, fin, niveau + 1, niveauRouge).compute();
+
+			Noeud x = new Noeud((E) elements[milieu]);
+			lier(x, gauche.join(), droit);
+			if( niveau == niveauRouge ) x.couleur = 'R';
+			return x;
+		}
+	}
+
+	private Noeud executer( Tache tache ) 
+	{
+		if( tache.profondeur == 0 ) 
+			return tache.compute();
+		return ForkJoinPool.commonPool().invoke(tache);
+	}
+
+	/**
+	 * Renvoie la profondeur jusqu'à laquelle une opération sur m éléments
+	 * crée des tâches : assez pour occuper tous les coeurs, sans descendre
+	 * sous {@link #SEUIL_PARALLELE} éléments par tâche
+	 */
+	private static int profondeurParallele( int m ) 
+	{
+		int coeurs = ForkJoinPool.getCommonPoolParallelism();
+		int profondeur = 0;
+		while( (1 << profondeur) < 4 * coeurs && (m >> (profondeur + 1)) >= SEUIL_PARALLELE ) 
+			profondeur++;
+		return profondeur;
+	}
+
+	/**
+	 * Remplace le contenu de l'arbre par les éléments, triés en parallèle si
+	 * besoin, puis assemblés en parallèle en un arbre équilibré
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void construireParallele( Object[] elements ) 
+	{
+		if( !estTrie(elements) ) 
+			Arrays.parallelSort(elements, (Comparator) cmp);
+
+		int n = elements.length;
+		if( n == 0 ) 
+			racine = sentinelle;
+		else
+			racine = ForkJoinPool.commonPool().invoke(new TacheConstruction(elements, 0, n - 1, 0, niveauRouge(n)));
+		taille = n;
+		bornes();
+	}
+
+	/**
+	 * Renvoie un arbre de même comparateur contenant les éléments de c, c
+	 * lui-même si c'est déjà un tel ANR
+	 */
+	@SuppressWarnings("unchecked")
+	private ANR<E> enANR( Collection<?> c ) 
+	{
+		if( c instanceof ANR && ((ANR<?>) c).cmp.equals(cmp) ) 
+			return (ANR<E>) c;
+		ANR<E> arbre = new ANR<E>(cmp);
+		arbre.construireParallele(c.toArray());
+		return arbre;
+	}
+
+	/**
+	 * Version parallèle de {@link #addAll}. Sur un arbre vide, les éléments
+	 * sont triés puis l'arbre est construit en parallèle ; sinon c'est une
+	 * {@link #unionParallele(ANR)}.
+	 * 
+	 * @param c
+	 *            la collection dont les éléments sont ajoutés
+	 * @return true si l'arbre a été modifié
+	 */
+	public boolean addAllParallele( Collection<? extends E> c ) 
+	{
+		if( c.isEmpty() ) 
+			return false;
+		if( multiensemble ) 
+			return addAll(c);
+		if( racine == sentinelle && c != this ) 
+		{
+			construireParallele(c.toArray());
+			return true;
+		}
+		return unionParallele(enANR(c));
+	}
+
+	/**
+	 * Version parallèle de {@link #removeAll}
+	 * 
+	 * @param c
+	 *            la collection des éléments à supprimer
+	 * @return true si l'arbre a été modifié
+	 */
+	public boolean removeAllParallele( Collection<?> c ) 
+	{
+		if( multiensemble ) 
+			return removeAll(c);
+		return differenceParallele(enANR(c));
+	}
+
+	/**
+	 * Version parallèle de {@link #retainAll}
+	 * 
+	 * @param c
+	 *            la collection des éléments à garder
+	 * @return true si l'arbre a été modifié
+	 */
+	public boolean retainAllParallele( Collection<?> c ) 
+	{
+		if( multiensemble ) 
+			return retainAll(c);
+		return intersectionParallele(enANR(c));
+	}
+
+	/**
+	 * Version parallèle de {@link #union(ANR)}, exécutée dans le ForkJoinPool
+	 * commun
+	 */
+	public boolean unionParallele( ANR<? extends E> autre ) 
+	{
+		return union(autre, profondeurParallele(Math.min(taille, autre.taille)));
+	}
+
+	/**
+	 * Version parallèle de {@link #intersection(ANR)}, exécutée dans le
+	 * ForkJoinPool commun
+	 */
+	public boolean intersectionParallele( ANR<? extends E> autre ) 
+	{
+		return intersection(autre, profondeurParallele(Math.min(taille, autre.taille)));
+	}
+
+	/**
+	 * Version parallèle de {@link #difference(ANR)}, exécutée dans le
+	 * ForkJoinPool commun
+	 */
+	public boolean differenceParallele( ANR<? extends E> autre ) 
+	{
+		return difference(autre, profondeurParallele(Math.min(taille, autre.taille)));
+	}
+
+	public Object[] toArray() 
+	{
+		Object[] objets = new Object[size()];
+		Iterator i = iterator();
+		int cpt = 0;
+
+		while( i.hasNext() ) {
+			objets[cpt++] = i.next();
 		}
+		
+		return objets;
+	}
 	
+	/**
+	 * Affiche les différents cas de suppression. Les mesures de performance
+	 * se trouvent dans le module bench (JMH)
+	 */
+	public static void main(String[] args)
+	{
+		ArrayList<String> list = new ArrayList<>();
+
+		list.add("g");
+		list.add("u");
+		list.add("x");
+		list.add("e");
+		list.add("h");
+		list.add("t");
+		list.add("k");
+		list.add("z");
+		list.add("m");
+		list.add("a");
+		list.add("j");
+		
+		Collection<String> anr = new ANR<>(list);
+		String border = "====================================================";
+
+		System.out.println(border);
+		System.out.println("     Test 00: Affichage normal de l'arbre       \n");	
+		System.out.println(anr);
+
+		System.out.println(border);
+		System.out.println("  Test 01: Supprimer un noeud avec deux feuille (g)  \n");	
+		anr.remove("g");
+		System.out.println(anr);
+
+		System.out.println(border);
+		System.out.println("       Test 02: Supprimer une feuille (m)      \n");	
+		anr.remove("m");
+		System.out.println(anr);
+
+		System.out.println(border);
+		System.out.println("  Test 03: Supprimer un noeud avec une feuille (x)  \n");	
+		anr.remove("x");
+		System.out.println(anr);
+
+
+		System.out.println(border);
+		System.out.println("       Test 04: Supprimer la racine  (k)        \n");	
+		anr.remove("k");
+		System.out.println(anr);
+		System.out.println(border);
 	}
 
 	public static String RandomString(int stringLength) 
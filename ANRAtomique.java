@@ -0,0 +1,149 @@
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * Arbre rouge-noir modifiable construit sur {@link ANRPersistant} : l'arbre
+ * courant est une version persistante, remplacée atomiquement (par
+ * compareAndSet) à chaque modification. Plusieurs threads peuvent écrire en
+ * même temps ; une écriture qui a perdu la course recommence sur la nouvelle
+ * version.
+ * </p>
+ *
+ * <p>
+ * {@link #snapshot()} renvoie la version courante en O(1). Elle ne change
+ * plus, quelles que soient les écritures suivantes, et ses itérateurs ne sont
+ * jamais invalidés. L'itérateur de l'arbre parcourt ainsi la version
+ * courante au moment de sa création ; son remove supprime l'élément de la
+ * version courante de l'arbre.
+ * </p>
+ */
+public class ANRAtomique<E extends Comparable<E>> extends AbstractCollection<E>
+{
+	private final AtomicReference<ANRPersistant<E>> version;
+
+	private class ANRAtomiqueIterator implements Iterator<E> {
+		private final Iterator<E> it;
+		private E prec;
+		private boolean peutSupprimer;
+
+		ANRAtomiqueIterator(ANRPersistant<E> instantane)
+		{
+			it = instantane.iterator();
+		}
+
+		public boolean hasNext()
+		{
+			return it.hasNext();
+		}
+
+		public E next()
+		{
+			prec = it.next();
+			peutSupprimer = true;
+			return prec;
+		}
+
+		public void remove()
+		{
+			if ( !peutSupprimer ) throw new IllegalStateException();
+			ANRAtomique.this.remove(prec);
+			peutSupprimer = false;
+		}
+	}
+
+	// Constructeurs
+
+	/**
+	 * Crée un arbre vide. Les éléments sont ordonnés selon l'ordre naturel
+	 */
+	public ANRAtomique()
+	{
+		version = new AtomicReference<>(new ANRPersistant<>());
+	}
+
+	/**
+	 * Crée un arbre vide. Les éléments sont comparés selon l'ordre imposé par
+	 * le comparateur
+	 *
+	 * @param cmp
+	 *            le comparateur utilisé pour définir l'ordre des éléments
+	 */
+	public ANRAtomique(Comparator<? super E> cmp)
+	{
+		version = new AtomicReference<>(new ANRPersistant<E>(cmp));
+	}
+
+	/**
+	 * Constructeur par recopie. Crée un arbre qui contient les mêmes éléments
+	 * que c. L'ordre des éléments est l'ordre naturel.
+	 *
+	 * @param c
+	 *            la collection à copier
+	 */
+	public ANRAtomique(Collection<? extends E> c)
+	{
+		version = new AtomicReference<>(new ANRPersistant<>(c));
+	}
+
+	/**
+	 * Renvoie l'état courant de l'arbre, qui ne sera pas modifié par les
+	 * écritures suivantes. Coûte O(1).
+	 *
+	 * @return la version courante
+	 */
+	public ANRPersistant<E> snapshot()
+	{
+		return version.get();
+	}
+
+	@Override
+	public Iterator<E> iterator() {return new ANRAtomiqueIterator(version.get());}
+
+	@Override
+	public int size() {return version.get().size();}
+
+	@Override
+	public boolean isEmpty() {return version.get().isEmpty();}
+
+	@Override
+	public boolean contains(Object o) {return version.get().contains(o);}
+
+	@Override
+	public boolean add(E e)
+	{
+		ANRPersistant<E> v;
+		do
+		{
+			v = version.get();
+		} while ( !version.compareAndSet(v, v.ajouter(e)) );
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		ANRPersistant<E> v, nv;
+		do
+		{
+			v = version.get();
+			nv = v.supprimer(o);
+			if ( nv == v )
+				return false;
+		} while ( !version.compareAndSet(v, nv) );
+		return true;
+	}
+
+	@Override
+	public void clear()
+	{
+		ANRPersistant<E> v;
+		do
+		{
+			v = version.get();
+		} while ( !version.compareAndSet(v, v.vide()) );
+	}
+}
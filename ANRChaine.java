@@ -0,0 +1,408 @@
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Arbre rouge-noir de chaînes, ordonnées selon {@link String#compareTo}.
+ * Chaque noeud garde, à côté de sa clé, ses quatre premiers caractères
+ * rangés dans un long (poids fort en tête, complétés par des 0) : comparer
+ * deux préfixes donne l'ordre des chaînes dès qu'ils diffèrent, sans lire la
+ * chaîne ni son tableau d'octets. La comparaison complète n'est faite qu'en
+ * cas d'égalité des préfixes.
+ * </p>
+ *
+ * <p>
+ * Comme dans {@link ANR}, les doublons sont permis et rangés à droite.
+ * </p>
+ */
+public class ANRChaine extends AbstractCollection<String>
+{
+	private Noeud racine;
+	private int taille;
+	private final Noeud sentinelle = new Noeud(null);
+
+	private class Noeud
+	{
+		String cle;
+		// préfixe de la clé, décalé de Long.MIN_VALUE pour que l'ordre non
+		// signé des préfixes soit l'ordre de <
+		long prefixe;
+		Noeud gauche;
+		Noeud droit;
+		Noeud pere;
+		char couleur;
+
+		Noeud(String cle)
+		{
+			this.cle = cle;
+			prefixe = cle == null ? 0 : prefixe(cle);
+			couleur = 'N';
+			gauche = sentinelle;
+			droit = sentinelle;
+			pere = sentinelle;
+		}
+
+		Noeud minimum()
+		{
+			Noeud x = this;
+			while ( x.gauche != sentinelle ) x = x.gauche;
+			return x;
+		}
+
+		Noeud suivant()
+		{
+			Noeud x = this;
+			if ( x.droit != sentinelle )
+				return x.droit.minimum();
+
+			Noeud y = x.pere;
+			while ( y != sentinelle && x == y.droit )
+			{
+				x = y;
+				y = y.pere;
+			}
+			return y;
+		}
+	}
+
+	private class ANRChaineIterator implements Iterator<String> {
+		private Noeud suiv, prec;
+
+		ANRChaineIterator()
+		{
+			prec = sentinelle;
+			suiv = racine == sentinelle ? sentinelle : racine.minimum();
+		}
+
+		public boolean hasNext()
+		{
+			return suiv != sentinelle;
+		}
+
+		public String next()
+		{
+			if ( suiv == sentinelle ) throw new NoSuchElementException();
+			prec = suiv;
+			suiv = suiv.suivant();
+			return prec.cle;
+		}
+
+		public void remove()
+		{
+			if ( prec == sentinelle ) throw new IllegalStateException();
+			suiv = supprimer(prec);
+			prec = sentinelle;
+		}
+	}
+
+	// Constructeurs
+
+	/**
+	 * Crée un arbre vide
+	 */
+	public ANRChaine()
+	{
+		racine = sentinelle;
+	}
+
+	/**
+	 * Constructeur par recopie. Crée un arbre qui contient les mêmes chaînes
+	 * que c.
+	 *
+	 * @param c
+	 *            la collection à copier
+	 */
+	public ANRChaine(Collection<String> c)
+	{
+		this();
+		addAll(c);
+	}
+
+	/**
+	 * Les quatre premiers caractères de s, sur 16 bits chacun. Une chaîne
+	 * plus courte est complétée par des 0, inférieurs à tout caractère :
+	 * l'ordre des préfixes est bien celui de compareTo tant qu'ils diffèrent.
+	 */
+	private static long prefixe(String s)
+	{
+		int n = Math.min(4, s.length());
+		long p = 0;
+		for (int i = 0; i < n; i++)
+			p |= (long) s.charAt(i) << (48 - 16 * i);
+		return p ^ Long.MIN_VALUE;
+	}
+
+	/**
+	 * Compare la chaîne s, de préfixe p, à la clé du noeud x
+	 */
+	private static int comparer(long p, String s, ANRChaine.Noeud x)
+	{
+		if ( p != x.prefixe )
+			return p < x.prefixe ? -1 : 1;
+		return s.compareTo(x.cle);
+	}
+
+	@Override
+	public Iterator<String> iterator() {return new ANRChaineIterator();}
+
+	@Override
+	public int size() {return taille;}
+
+	@Override
+	public boolean isEmpty() {return racine == sentinelle;}
+
+	@Override
+	public void clear()
+	{
+		racine = sentinelle;
+		taille = 0;
+	}
+
+	private Noeud rechercher(Object o)
+	{
+		String s = (String) o;
+		long p = prefixe(s);
+		Noeud x = racine;
+		while ( x != sentinelle )
+		{
+			int c = comparer(p, s, x);
+			if ( c == 0 )
+				break;
+			x = c < 0 ? x.gauche : x.droit;
+		}
+		return x;
+	}
+
+	@Override
+	public boolean contains(Object o) {return rechercher(o) != sentinelle;}
+
+	@Override
+	public boolean add(String s)
+	{
+		Noeud z = new Noeud(s);
+		Noeud y = sentinelle;
+		Noeud x = racine;
+		boolean aGauche = false;
+		while ( x != sentinelle )
+		{
+			y = x;
+			aGauche = comparer(z.prefixe, s, x) < 0;
+			x = aGauche ? x.gauche : x.droit;
+		}
+
+		z.pere = y;
+		if ( y == sentinelle )
+			racine = z;
+		else if ( aGauche )
+			y.gauche = z;
+		else
+			y.droit = z;
+		z.couleur = 'R';
+		ajouterCorrection(z);
+		taille++;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		Noeud z = rechercher(o);
+		if ( z == sentinelle )
+			return false;
+		supprimer(z);
+		return true;
+	}
+
+	// Rééquilibrage, comme dans ANR
+
+	private void ajouterCorrection(Noeud z)
+	{
+		while ( z.pere.couleur == 'R' )
+		{
+			Noeud p = z.pere, g = p.pere;
+			if ( p == g.gauche )
+			{
+				Noeud y = g.droit;
+				if ( y.couleur == 'R' )
+				{
+					p.couleur = 'N';
+					y.couleur = 'N';
+					g.couleur = 'R';
+					z = g;
+				} else
+				{
+					if ( z == p.droit )
+					{
+						z = p;
+						rotationGauche(z);
+					}
+					z.pere.couleur = 'N';
+					z.pere.pere.couleur = 'R';
+					rotationDroite(z.pere.pere);
+				}
+			} else
+			{
+				Noeud y = g.gauche;
+				if ( y.couleur == 'R' )
+				{
+					p.couleur = 'N';
+					y.couleur = 'N';
+					g.couleur = 'R';
+					z = g;
+				} else
+				{
+					if ( z == p.gauche )
+					{
+						z = p;
+						rotationDroite(z);
+					}
+					z.pere.couleur = 'N';
+					z.pere.pere.couleur = 'R';
+					rotationGauche(z.pere.pere);
+				}
+			}
+		}
+		racine.couleur = 'N';
+	}
+
+	/**
+	 * Supprime le noeud z
+	 *
+	 * @return le noeud contenant la clé qui suit celle de z
+	 */
+	private Noeud supprimer(Noeud z)
+	{
+		Noeud y, x;
+		Noeud svt = z.suivant();
+
+		y = (z.gauche == sentinelle || z.droit == sentinelle) ? z : svt;
+		x = y.gauche != sentinelle ? y.gauche : y.droit;
+
+		x.pere = y.pere;
+		if ( y.pere == sentinelle )
+			racine = x;
+		else if ( y == y.pere.gauche )
+			y.pere.gauche = x;
+		else
+			y.pere.droit = x;
+
+		if ( y != z )
+		{
+			z.cle = y.cle;
+			z.prefixe = y.prefixe;
+			svt = z;
+		}
+		if ( y.couleur == 'N' )
+			supprimerCorrection(x);
+
+		taille--;
+		return svt;
+	}
+
+	private void supprimerCorrection(Noeud x)
+	{
+		while ( x != racine && x.couleur == 'N' )
+		{
+			if ( x == x.pere.gauche )
+			{
+				Noeud w = x.pere.droit;
+				if ( w.couleur == 'R' )
+				{
+					w.couleur = 'N';
+					x.pere.couleur = 'R';
+					rotationGauche(x.pere);
+					w = x.pere.droit;
+				}
+				if ( w.gauche.couleur == 'N' && w.droit.couleur == 'N' )
+				{
+					w.couleur = 'R';
+					x = x.pere;
+				} else
+				{
+					if ( w.droit.couleur == 'N' )
+					{
+						w.gauche.couleur = 'N';
+						w.couleur = 'R';
+						rotationDroite(w);
+						w = x.pere.droit;
+					}
+					w.couleur = x.pere.couleur;
+					x.pere.couleur = 'N';
+					w.droit.couleur = 'N';
+					rotationGauche(x.pere);
+					x = racine;
+				}
+			} else
+			{
+				Noeud w = x.pere.gauche;
+				if ( w.couleur == 'R' )
+				{
+					w.couleur = 'N';
+					x.pere.couleur = 'R';
+					rotationDroite(x.pere);
+					w = x.pere.gauche;
+				}
+				if ( w.droit.couleur == 'N' && w.gauche.couleur == 'N' )
+				{
+					w.couleur = 'R';
+					x = x.pere;
+				} else
+				{
+					if ( w.gauche.couleur == 'N' )
+					{
+						w.droit.couleur = 'N';
+						w.couleur = 'R';
+						rotationGauche(w);
+						w = x.pere.gauche;
+					}
+					w.couleur = x.pere.couleur;
+					x.pere.couleur = 'N';
+					w.gauche.couleur = 'N';
+					rotationDroite(x.pere);
+					x = racine;
+				}
+			}
+		}
+		x.couleur = 'N';
+	}
+
+	private void rotationGauche(Noeud z)
+	{
+		Noeud tmp = z.droit;
+		z.droit = tmp.gauche;
+		if ( tmp.gauche != sentinelle )
+			tmp.gauche.pere = z;
+
+		tmp.pere = z.pere;
+		if ( z.pere == sentinelle )
+			racine = tmp;
+		else if ( z.pere.gauche == z )
+			z.pere.gauche = tmp;
+		else
+			z.pere.droit = tmp;
+
+		tmp.gauche = z;
+		z.pere = tmp;
+	}
+
+	private void rotationDroite(Noeud z)
+	{
+		Noeud tmp = z.gauche;
+		z.gauche = tmp.droit;
+		if ( tmp.droit != sentinelle )
+			tmp.droit.pere = z;
+
+		tmp.pere = z.pere;
+		if ( z.pere == sentinelle )
+			racine = tmp;
+		else if ( z.pere.droit == z )
+			z.pere.droit = tmp;
+		else
+			z.pere.gauche = tmp;
+
+		tmp.droit = z;
+		z.pere = tmp;
+	}
+}
@@ -0,0 +1,276 @@
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * <p>
+ * Version de {@link ANR} partageable entre plusieurs threads. Les
+ * modifications (ajout, suppression et leurs rotations) prennent le verrou en
+ * écriture d'un {@link StampedLock}. Les recherches se font d'abord en
+ * lecture optimiste, sans prendre de verrou : des lecteurs ne se bloquent
+ * donc jamais entre eux. Si une écriture a eu lieu pendant la recherche, elle
+ * est refaite sous le verrou en lecture.
+ * </p>
+ *
+ * <p>
+ * Une recherche optimiste peut voir l'arbre au milieu d'une rotation : elle
+ * est limitée à {@link #PAS_MAX} noeuds (cf {@link ANR#rechercherBorne}) et
+ * ses exceptions ne sont transmises que si la lecture est validée.
+ * </p>
+ *
+ * <p>
+ * Les itérateurs parcourent une copie des éléments prise sous le verrou en
+ * lecture : ils ne sont jamais invalidés par les écritures des autres
+ * threads, et {@link Iterator#remove()} supprime l'élément de l'arbre.
+ * </p>
+ */
+public class ANRConcurrent<E extends Comparable<E>> extends AbstractCollection<E>
+{
+	// Un ANR de moins de 2^31 éléments a une hauteur d'au plus 2 * 31
+	private static final int PAS_MAX = 64;
+
+	private final ANR<E> arbre;
+	private final StampedLock verrou = new StampedLock();
+
+	/**
+	 * Copie figée des éléments, parcourue par l'itérateur
+	 */
+	private class ANRConcurrentIterator implements Iterator<E> {
+		private final Object[] copie;
+		private int suiv;
+		private boolean peutSupprimer;
+
+		ANRConcurrentIterator(Object[] copie)
+		{
+			this.copie = copie;
+		}
+
+		public boolean hasNext()
+		{
+			return suiv < copie.length;
+		}
+
+		@SuppressWarnings("unchecked")
+		public E next()
+		{
+			if ( suiv == copie.length ) throw new NoSuchElementException();
+			peutSupprimer = true;
+			return (E) copie[suiv++];
+		}
+
+		public void remove()
+		{
+			if ( !peutSupprimer ) throw new IllegalStateException();
+			ANRConcurrent.this.remove(copie[suiv - 1]);
+			peutSupprimer = false;
+		}
+	}
+
+	// Constructeurs
+
+	/**
+	 * Crée un arbre vide. Les éléments sont ordonnés selon l'ordre naturel
+	 */
+	public ANRConcurrent()
+	{
+		arbre = new ANR<>();
+	}
+
+	/**
+	 * Crée un arbre vide. Les éléments sont comparés selon l'ordre imposé par
+	 * le comparateur
+	 *
+	 * @param cmp
+	 *            le comparateur utilisé pour définir l'ordre des éléments
+	 */
+	public ANRConcurrent(Comparator<? super E> cmp)
+	{
+		arbre = new ANR<E>(cmp);
+	}
+
+	/**
+	 * Constructeur par recopie. Crée un arbre qui contient les mêmes éléments
+	 * que c. L'ordre des éléments est l'ordre naturel.
+	 *
+	 * @param c
+	 *            la collection à copier
+	 */
+	public ANRConcurrent(Collection<? extends E> c)
+	{
+		arbre = new ANR<>(c);
+	}
+
+	// Lectures
+
+	@Override
+	public boolean contains(Object o)
+	{
+		long stamp = verrou.tryOptimisticRead();
+		if ( stamp != 0 )
+		{
+			try
+			{
+				int trouve = arbre.rechercherBorne(o, PAS_MAX);
+				if ( trouve >= 0 && verrou.validate(stamp) )
+					return trouve == 1;
+			} catch (RuntimeException e)
+			{
+				// seule une exception levée sur un arbre cohérent compte
+				if ( verrou.validate(stamp) ) throw e;
+			}
+		}
+
+		stamp = verrou.readLock();
+		try
+		{
+			return arbre.contains(o);
+		} finally
+		{
+			verrou.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public int size()
+	{
+		long stamp = verrou.tryOptimisticRead();
+		int taille = arbre.size();
+		if ( verrou.validate(stamp) )
+			return taille;
+
+		stamp = verrou.readLock();
+		try
+		{
+			return arbre.size();
+		} finally
+		{
+			verrou.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	@Override
+	public Iterator<E> iterator()
+	{
+		return new ANRConcurrentIterator(toArray());
+	}
+
+	@Override
+	public Object[] toArray()
+	{
+		long stamp = verrou.readLock();
+		try
+		{
+			return arbre.toArray();
+		} finally
+		{
+			verrou.unlockRead(stamp);
+		}
+	}
+
+	// Écritures
+
+	@Override
+	public boolean add(E e)
+	{
+		long stamp = verrou.writeLock();
+		try
+		{
+			return arbre.add(e);
+		} finally
+		{
+			verrou.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		long stamp = verrou.writeLock();
+		try
+		{
+			return arbre.remove(o);
+		} finally
+		{
+			verrou.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Copie c dans un ANR de même comparateur, avant de prendre le verrou en
+	 * écriture : c peut être cet arbre ou un autre ANRConcurrent, dont le
+	 * verrou ne doit pas être pris sous le nôtre. Les opérations ensemblistes
+	 * de l'ANR s'appliquent ensuite à la copie.
+	 */
+	@SuppressWarnings("unchecked")
+	private ANR<E> copier(Collection<?> c)
+	{
+		ANR<E> copie = new ANR<E>(arbre.getCmp());
+		copie.addAll((Collection<? extends E>) (Collection<?>) Arrays.asList(c.toArray()));
+		return copie;
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends E> c)
+	{
+		ANR<E> copie = copier(c);
+		long stamp = verrou.writeLock();
+		try
+		{
+			return arbre.addAll(copie);
+		} finally
+		{
+			verrou.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c)
+	{
+		ANR<E> copie = copier(c);
+		long stamp = verrou.writeLock();
+		try
+		{
+			return arbre.removeAll(copie);
+		} finally
+		{
+			verrou.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c)
+	{
+		ANR<E> copie = copier(c);
+		long stamp = verrou.writeLock();
+		try
+		{
+			return arbre.retainAll(copie);
+		} finally
+		{
+			verrou.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public void clear()
+	{
+		long stamp = verrou.writeLock();
+		try
+		{
+			arbre.clear();
+		} finally
+		{
+			verrou.unlockWrite(stamp);
+		}
+	}
+}
@@ -0,0 +1,359 @@
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Version figée d'un arbre (cf {@link ANR#figer()}), en lecture seule. Les
+ * clés sont rangées dans un tableau selon l'ordre d'Eytzinger : la racine en
+ * 1, les fils du noeud k en 2k et 2k+1. Une recherche ne suit plus de
+ * pointeurs : elle descend dans le tableau, dont les premiers niveaux, les
+ * plus visités, sont contigus en mémoire.
+ * </p>
+ *
+ * <p>
+ * La descente est sans branchement : à chaque niveau k devient 2k ou 2k+1
+ * selon le résultat de la comparaison, sans test d'égalité. Le noeud cherché
+ * se retrouve ensuite à partir des bits de k : les 1 de poids faible sont
+ * les derniers pas à droite, les 0 les derniers pas à gauche.
+ * </p>
+ *
+ * <p>
+ * Les clés Integer et Long ordonnées selon l'ordre naturel sont rangées dans
+ * un tableau d'int ou de long, les autres dans un tableau d'objets comparés
+ * par le comparateur de l'arbre.
+ * </p>
+ *
+ * @param <E>
+ *            le type des clés
+ */
+public class ANRFige<E extends Comparable<E>> extends AbstractCollection<E>
+{
+	// nombre de recherches menées de front par rechercherLot
+	private static final int LOT = 16;
+
+	private final int taille;
+	private final Comparator<? super E> cmp;
+	// un seul des trois tableaux est utilisé, la case 0 est vide
+	private final int[] entiers;
+	private final long[] longs;
+	private final Object[] cles;
+
+	private class ANRFigeIterator implements Iterator<E> {
+		private int suiv = taille == 0 ? 0 : premier();
+
+		public boolean hasNext()
+		{
+			return suiv != 0;
+		}
+
+		public E next()
+		{
+			if ( suiv == 0 ) throw new NoSuchElementException();
+			E e = cle(suiv);
+			suiv = suivant(suiv);
+			return e;
+		}
+	}
+
+	/**
+	 * Crée la version figée des éléments triés
+	 *
+	 * @param tries
+	 *            les éléments, dans l'ordre de cmp
+	 * @param cmp
+	 *            l'ordre des éléments
+	 */
+	ANRFige(Object[] tries, Comparator<? super E> cmp)
+	{
+		taille = tries.length;
+		this.cmp = cmp;
+
+		boolean naturel = cmp.equals(Comparator.naturalOrder());
+		if ( naturel && tousInstances(tries, Integer.class) )
+		{
+			entiers = new int[taille + 1];
+			longs = null;
+			cles = null;
+		} else if ( naturel && tousInstances(tries, Long.class) )
+		{
+			entiers = null;
+			longs = new long[taille + 1];
+			cles = null;
+		} else
+		{
+			entiers = null;
+			longs = null;
+			cles = new Object[taille + 1];
+		}
+		ranger(tries, 0, 1);
+	}
+
+	private static boolean tousInstances(Object[] t, Class<?> classe)
+	{
+		for (Object o : t)
+			if ( o.getClass() != classe )
+				return false;
+		return t.length > 0;
+	}
+
+	/**
+	 * Range les éléments du sous-arbre k, parcouru dans l'ordre, à partir de
+	 * tries[i]
+	 *
+	 * @return l'indice du premier élément non rangé
+	 */
+	private int ranger(Object[] tries, int i, int k)
+	{
+		if ( k > taille )
+			return i;
+		i = ranger(tries, i, 2 * k);
+		if ( entiers != null ) entiers[k] = (Integer) tries[i];
+		else if ( longs != null ) longs[k] = (Long) tries[i];
+		else cles[k] = tries[i];
+		return ranger(tries, i + 1, 2 * k + 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private E cle(int k)
+	{
+		if ( entiers != null ) return (E) Integer.valueOf(entiers[k]);
+		if ( longs != null ) return (E) Long.valueOf(longs[k]);
+		return (E) cles[k];
+	}
+
+	/**
+	 * Descend dans l'arbre en allant à droite quand la clé du noeud est
+	 * inférieure à o (ou égale si egalADroite)
+	 *
+	 * @return l'indice de la case vide atteinte sous une feuille
+	 */
+	@SuppressWarnings("unchecked")
+	private int descendre(Object o, boolean egalADroite)
+	{
+		int k = 1;
+		int n = taille;
+		if ( entiers != null )
+		{
+			int[] t = entiers;
+			// une clé d'un autre type lève ClassCastException, comme dans
+			// l'arbre
+			int x = (Integer) o;
+			if ( egalADroite )
+				while ( k <= n ) k = 2 * k + (t[k] <= x ? 1 : 0);
+			else
+				while ( k <= n ) k = 2 * k + (t[k] < x ? 1 : 0);
+		} else if ( longs != null )
+		{
+			long[] t = longs;
+			long x = (Long) o;
+			if ( egalADroite )
+				while ( k <= n ) k = 2 * k + (t[k] <= x ? 1 : 0);
+			else
+				while ( k <= n ) k = 2 * k + (t[k] < x ? 1 : 0);
+		} else
+		{
+			Object[] t = cles;
+			E x = (E) o;
+			int seuil = egalADroite ? 1 : 0;
+			while ( k <= n ) k = 2 * k + (cmp.compare((E) t[k], x) < seuil ? 1 : 0);
+		}
+		return k;
+	}
+
+	/**
+	 * Le dernier noeud où la descente est allée à gauche : on enlève les pas
+	 * à droite de la fin du chemin, puis ce pas à gauche
+	 *
+	 * @return l'indice de ce noeud, 0 s'il n'y en a pas
+	 */
+	private static int dernierAGauche(int k)
+	{
+		return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+	}
+
+	/**
+	 * Le dernier noeud où la descente est allée à droite
+	 *
+	 * @return l'indice de ce noeud, 0 s'il n'y en a pas
+	 */
+	private static int dernierADroite(int k)
+	{
+		return k >>> (Integer.numberOfTrailingZeros(k) + 1);
+	}
+
+	private int premier()
+	{
+		int k = 1;
+		while ( 2 * k <= taille ) k = 2 * k;
+		return k;
+	}
+
+	private int dernier()
+	{
+		int k = 1;
+		while ( 2 * k + 1 <= taille ) k = 2 * k + 1;
+		return k;
+	}
+
+	/**
+	 * Le successeur du noeud k dans l'ordre des clés : le minimum du fils
+	 * droit s'il existe, sinon le premier ancêtre dont on est dans le
+	 * sous-arbre gauche
+	 *
+	 * @return l'indice du successeur, 0 si k est le dernier noeud
+	 */
+	private int suivant(int k)
+	{
+		if ( 2 * k + 1 <= taille )
+		{
+			k = 2 * k + 1;
+			while ( 2 * k <= taille ) k = 2 * k;
+			return k;
+		}
+		return dernierAGauche(k);
+	}
+
+	private E cleOuNull(int k)
+	{
+		return k == 0 ? null : cle(k);
+	}
+
+	@Override
+	public Iterator<E> iterator() {return new ANRFigeIterator();}
+
+	@Override
+	public int size() {return taille;}
+
+	@Override
+	public boolean isEmpty() {return taille == 0;}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean contains(Object o)
+	{
+		int k = dernierAGauche(descendre(o, false));
+		if ( k == 0 )
+			return false;
+		if ( entiers != null ) return entiers[k] == (Integer) o;
+		if ( longs != null ) return longs[k] == (Long) o;
+		return cmp.compare((E) cles[k], (E) o) == 0;
+	}
+
+	/**
+	 * Recherche chaque clé de lot. Les recherches sont menées de front par
+	 * groupes de {@value #LOT}, un niveau de l'arbre à la fois : les accès
+	 * mémoire des différentes recherches se recouvrent au lieu de se suivre.
+	 *
+	 * @param lot
+	 *            les clés à chercher
+	 * @return le tableau des résultats, trouve[i] vaut contains(lot[i])
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean[] rechercherLot(Object[] lot)
+	{
+		boolean[] trouve = new boolean[lot.length];
+		if ( taille == 0 )
+			return trouve;
+
+		// tous les chemins ont au moins (niveaux - 1) pas, le dernier niveau
+		// pouvant être incomplet
+		int niveaux = 32 - Integer.numberOfLeadingZeros(taille);
+		int n = taille;
+		int[] k = new int[LOT];
+		int[] xEntiers = entiers != null ? new int[LOT] : null;
+		long[] xLongs = longs != null ? new long[LOT] : null;
+		for (int debut = 0; debut < lot.length; debut += LOT)
+		{
+			int m = Math.min(LOT, lot.length - debut);
+			Arrays.fill(k, 0, m, 1);
+			if ( entiers != null )
+			{
+				int[] t = entiers;
+				int[] x = xEntiers;
+				for (int j = 0; j < m; j++) x[j] = (Integer) lot[debut + j];
+				for (int h = 1; h < niveaux; h++)
+					for (int j = 0; j < m; j++) k[j] = 2 * k[j] + (t[k[j]] < x[j] ? 1 : 0);
+				for (int j = 0; j < m; j++)
+				{
+					if ( k[j] <= n ) k[j] = 2 * k[j] + (t[k[j]] < x[j] ? 1 : 0);
+					int r = dernierAGauche(k[j]);
+					trouve[debut + j] = r != 0 && t[r] == x[j];
+				}
+			} else if ( longs != null )
+			{
+				long[] t = longs;
+				long[] x = xLongs;
+				for (int j = 0; j < m; j++) x[j] = (Long) lot[debut + j];
+				for (int h = 1; h < niveaux; h++)
+					for (int j = 0; j < m; j++) k[j] = 2 * k[j] + (t[k[j]] < x[j] ? 1 : 0);
+				for (int j = 0; j < m; j++)
+				{
+					if ( k[j] <= n ) k[j] = 2 * k[j] + (t[k[j]] < x[j] ? 1 : 0);
+					int r = dernierAGauche(k[j]);
+					trouve[debut + j] = r != 0 && t[r] == x[j];
+				}
+			} else
+			{
+				Object[] t = cles;
+				for (int h = 1; h < niveaux; h++)
+					for (int j = 0; j < m; j++)
+						k[j] = 2 * k[j] + (cmp.compare((E) t[k[j]], (E) lot[debut + j]) < 0 ? 1 : 0);
+				for (int j = 0; j < m; j++)
+				{
+					E x = (E) lot[debut + j];
+					if ( k[j] <= n ) k[j] = 2 * k[j] + (cmp.compare((E) t[k[j]], x) < 0 ? 1 : 0);
+					int r = dernierAGauche(k[j]);
+					trouve[debut + j] = r != 0 && cmp.compare((E) t[r], x) == 0;
+				}
+			}
+		}
+		return trouve;
+	}
+
+	/**
+	 * @return la plus grande clé strictement inférieure à e, null s'il n'y en
+	 *         a pas
+	 */
+	public E lower(E e) {return cleOuNull(dernierADroite(descendre(e, false)));}
+
+	/**
+	 * @return la plus grande clé inférieure ou égale à e, null s'il n'y en a
+	 *         pas
+	 */
+	public E floor(E e) {return cleOuNull(dernierADroite(descendre(e, true)));}
+
+	/**
+	 * @return la plus petite clé supérieure ou égale à e, null s'il n'y en a
+	 *         pas
+	 */
+	public E ceiling(E e) {return cleOuNull(dernierAGauche(descendre(e, false)));}
+
+	/**
+	 * @return la plus petite clé strictement supérieure à e, null s'il n'y en
+	 *         a pas
+	 */
+	public E higher(E e) {return cleOuNull(dernierAGauche(descendre(e, true)));}
+
+	public E first()
+	{
+		if ( taille == 0 ) throw new NoSuchElementException();
+		return cle(premier());
+	}
+
+	public E last()
+	{
+		if ( taille == 0 ) throw new NoSuchElementException();
+		return cle(dernier());
+	}
+
+	/**
+	 * @return le comparateur des clés, null pour l'ordre naturel
+	 */
+	public Comparator<? super E> comparator()
+	{
+		return cmp.equals(Comparator.naturalOrder()) ? null : cmp;
+	}
+}
@@ -0,0 +1,543 @@
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Arbre d'intervalles : arbre rouge-noir d'intervalles fermés [debut, fin],
+ * rangés par début puis par fin. Chaque noeud garde la plus grande fin de son
+ * sous-arbre, tenue à jour par les rotations (seules modifications de forme
+ * des deux corrections, après ajout et après suppression) et en remontant
+ * depuis le noeud retiré.
+ * </p>
+ *
+ * <p>
+ * {@link #overlapping} et {@link #stabbing} ne descendent que dans les
+ * sous-arbres dont la plus grande fin atteint la borne basse de la requête,
+ * et ne passent à droite que tant que les débuts restent sous la borne haute
+ * : chaque noeud visité est sur le chemin d'un intervalle renvoyé, ou sur
+ * l'un des deux chemins de bord. Les doublons sont permis, comme dans
+ * {@link ANR}.
+ * </p>
+ *
+ * @param <E>
+ *            le type des bornes
+ */
+public class ANRIntervalles<E extends Comparable<E>> extends AbstractCollection<ANRIntervalles.Intervalle<E>>
+{
+	private Noeud racine;
+	private int taille;
+	private Comparator<? super E> cmp;
+	private final Noeud sentinelle = new Noeud(null);
+
+	/**
+	 * Intervalle fermé [debut, fin]
+	 *
+	 * @param <E>
+	 *            le type des bornes
+	 */
+	public static final class Intervalle<E>
+	{
+		private final E debut, fin;
+
+		public Intervalle(E debut, E fin)
+		{
+			this.debut = Objects.requireNonNull(debut);
+			this.fin = Objects.requireNonNull(fin);
+		}
+
+		public E getDebut() {return debut;}
+
+		public E getFin() {return fin;}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if ( !(o instanceof Intervalle) )
+				return false;
+			Intervalle<?> i = (Intervalle<?>) o;
+			return debut.equals(i.debut) && fin.equals(i.fin);
+		}
+
+		@Override
+		public int hashCode() {return 31 * debut.hashCode() + fin.hashCode();}
+
+		@Override
+		public String toString() {return "[" + debut + ", " + fin + "]";}
+	}
+
+	private class Noeud
+	{
+		Intervalle<E> cle;
+		// plus grande fin du sous-arbre, null pour la sentinelle
+		E max;
+		Noeud gauche;
+		Noeud droit;
+		Noeud pere;
+		char couleur;
+
+		Noeud(Intervalle<E> cle)
+		{
+			this.cle = cle;
+			max = cle == null ? null : cle.fin;
+			couleur = 'N';
+			gauche = sentinelle;
+			droit = sentinelle;
+			pere = sentinelle;
+		}
+
+		Noeud minimum()
+		{
+			Noeud x = this;
+			while ( x.gauche != sentinelle ) x = x.gauche;
+			return x;
+		}
+
+		Noeud suivant()
+		{
+			Noeud x = this;
+			if ( x.droit != sentinelle )
+				return x.droit.minimum();
+
+			Noeud y = x.pere;
+			while ( y != sentinelle && x == y.droit )
+			{
+				x = y;
+				y = y.pere;
+			}
+			return y;
+		}
+
+		/**
+		 * Recalcule max à partir de la fin du noeud et de ses fils
+		 */
+		void majMax()
+		{
+			E m = cle.fin;
+			if ( gauche != sentinelle && cmp.compare(gauche.max, m) > 0 ) m = gauche.max;
+			if ( droit != sentinelle && cmp.compare(droit.max, m) > 0 ) m = droit.max;
+			max = m;
+		}
+	}
+
+	private class ANRIntervallesIterator implements Iterator<Intervalle<E>> {
+		private Noeud suiv, prec;
+
+		ANRIntervallesIterator()
+		{
+			prec = sentinelle;
+			suiv = racine == sentinelle ? sentinelle : racine.minimum();
+		}
+
+		public boolean hasNext()
+		{
+			return suiv != sentinelle;
+		}
+
+		public Intervalle<E> next()
+		{
+			if ( suiv == sentinelle ) throw new NoSuchElementException();
+			prec = suiv;
+			suiv = suiv.suivant();
+			return prec.cle;
+		}
+
+		public void remove()
+		{
+			if ( prec == sentinelle ) throw new IllegalStateException();
+			suiv = supprimer(prec);
+			prec = sentinelle;
+		}
+	}
+
+	// Constructeurs
+
+	/**
+	 * Crée un arbre vide. Les bornes sont ordonnées selon l'ordre naturel
+	 */
+	@SuppressWarnings("unchecked")
+	public ANRIntervalles()
+	{
+		cmp = (Comparator<E>) Comparator.naturalOrder();
+		racine = sentinelle;
+	}
+
+	/**
+	 * Crée un arbre vide. Les bornes sont comparées selon l'ordre imposé par
+	 * le comparateur
+	 *
+	 * @param cmp
+	 *            le comparateur utilisé pour définir l'ordre des bornes
+	 */
+	public ANRIntervalles(Comparator<? super E> cmp)
+	{
+		this.cmp = cmp;
+		racine = sentinelle;
+	}
+
+	/**
+	 * Constructeur par recopie. Crée un arbre qui contient les mêmes
+	 * intervalles que c. L'ordre des bornes est l'ordre naturel.
+	 *
+	 * @param c
+	 *            la collection à copier
+	 */
+	public ANRIntervalles(Collection<? extends Intervalle<E>> c)
+	{
+		this();
+		addAll(c);
+	}
+
+	/**
+	 * Compare deux intervalles par début, puis par fin
+	 */
+	private int comparer(Intervalle<E> a, Intervalle<E> b)
+	{
+		int c = cmp.compare(a.debut, b.debut);
+		return c != 0 ? c : cmp.compare(a.fin, b.fin);
+	}
+
+	@Override
+	public Iterator<Intervalle<E>> iterator() {return new ANRIntervallesIterator();}
+
+	@Override
+	public int size() {return taille;}
+
+	@Override
+	public boolean isEmpty() {return racine == sentinelle;}
+
+	@Override
+	public void clear()
+	{
+		racine = sentinelle;
+		taille = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Noeud rechercher(Object o)
+	{
+		if ( !(o instanceof Intervalle) )
+			return sentinelle;
+		Intervalle<E> i = (Intervalle<E>) o;
+		Noeud x = racine;
+		while ( x != sentinelle )
+		{
+			int c = comparer(i, x.cle);
+			if ( c == 0 )
+				break;
+			x = c < 0 ? x.gauche : x.droit;
+		}
+		return x;
+	}
+
+	@Override
+	public boolean contains(Object o) {return rechercher(o) != sentinelle;}
+
+	/**
+	 * Ajoute l'intervalle [debut, fin]
+	 *
+	 * @return true
+	 */
+	public boolean add(E debut, E fin) {return add(new Intervalle<E>(debut, fin));}
+
+	@Override
+	public boolean add(Intervalle<E> i)
+	{
+		if ( cmp.compare(i.debut, i.fin) > 0 )
+			throw new IllegalArgumentException("intervalle vide : " + i);
+
+		Noeud z = new Noeud(i);
+		Noeud y = sentinelle;
+		Noeud x = racine;
+		boolean aGauche = false;
+		while ( x != sentinelle )
+		{
+			// z sera dans le sous-arbre de chaque noeud du chemin
+			if ( cmp.compare(i.fin, x.max) > 0 )
+				x.max = i.fin;
+			y = x;
+			aGauche = comparer(i, x.cle) < 0;
+			x = aGauche ? x.gauche : x.droit;
+		}
+
+		z.pere = y;
+		if ( y == sentinelle )
+			racine = z;
+		else if ( aGauche )
+			y.gauche = z;
+		else
+			y.droit = z;
+		z.couleur = 'R';
+		ajouterCorrection(z);
+		taille++;
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		Noeud z = rechercher(o);
+		if ( z == sentinelle )
+			return false;
+		supprimer(z);
+		return true;
+	}
+
+	// Requêtes
+
+	/**
+	 * Renvoie les intervalles qui rencontrent [a, b], c'est-à-dire dont le
+	 * début est inférieur ou égal à b et la fin supérieure ou égale à a, par
+	 * ordre de début. Le coût est O(log n) si aucun ne convient, au plus
+	 * O(k·log n) pour k intervalles renvoyés.
+	 *
+	 * @param a
+	 *            la borne basse de la requête
+	 * @param b
+	 *            la borne haute de la requête
+	 * @return la liste des intervalles trouvés
+	 */
+	public List<Intervalle<E>> overlapping(E a, E b)
+	{
+		if ( cmp.compare(a, b) > 0 )
+			throw new IllegalArgumentException("intervalle vide : [" + a + ", " + b + "]");
+		List<Intervalle<E>> res = new ArrayList<Intervalle<E>>();
+		chercherChevauchants(racine, a, b, res);
+		return res;
+	}
+
+	/**
+	 * Renvoie les intervalles qui contiennent x, par ordre de début
+	 *
+	 * @param x
+	 *            le point cherché
+	 * @return la liste des intervalles trouvés
+	 */
+	public List<Intervalle<E>> stabbing(E x) {return overlapping(x, x);}
+
+	private void chercherChevauchants(Noeud x, E a, E b, List<Intervalle<E>> res)
+	{
+		// la récursion ne suit que les fils gauches, la boucle les fils
+		// droits : la pile reste en O(log n)
+		while ( x != sentinelle && cmp.compare(x.max, a) >= 0 )
+		{
+			chercherChevauchants(x.gauche, a, b, res);
+			// tout le sous-arbre droit commence après x
+			if ( cmp.compare(x.cle.debut, b) > 0 )
+				return;
+			if ( cmp.compare(x.cle.fin, a) >= 0 )
+				res.add(x.cle);
+			x = x.droit;
+		}
+	}
+
+	// Rééquilibrage, comme dans ANR
+
+	private void ajouterCorrection(Noeud z)
+	{
+		while ( z.pere.couleur == 'R' )
+		{
+			Noeud p = z.pere, g = p.pere;
+			if ( p == g.gauche )
+			{
+				Noeud y = g.droit;
+				if ( y.couleur == 'R' )
+				{
+					p.couleur = 'N';
+					y.couleur = 'N';
+					g.couleur = 'R';
+					z = g;
+				} else
+				{
+					if ( z == p.droit )
+					{
+						z = p;
+						rotationGauche(z);
+					}
+					z.pere.couleur = 'N';
+					z.pere.pere.couleur = 'R';
+					rotationDroite(z.pere.pere);
+				}
+			} else
+			{
+				Noeud y = g.gauche;
+				if ( y.couleur == 'R' )
+				{
+					p.couleur = 'N';
+					y.couleur = 'N';
+					g.couleur = 'R';
+					z = g;
+				} else
+				{
+					if ( z == p.gauche )
+					{
+						z = p;
+						rotationDroite(z);
+					}
+					z.pere.couleur = 'N';
+					z.pere.pere.couleur = 'R';
+					rotationGauche(z.pere.pere);
+				}
+			}
+		}
+		racine.couleur = 'N';
+	}
+
+	/**
+	 * Supprime le noeud z
+	 *
+	 * @return le noeud contenant l'intervalle qui suit celui de z
+	 */
+	private Noeud supprimer(Noeud z)
+	{
+		Noeud y, x;
+		Noeud svt = z.suivant();
+
+		y = (z.gauche == sentinelle || z.droit == sentinelle) ? z : svt;
+		x = y.gauche != sentinelle ? y.gauche : y.droit;
+
+		x.pere = y.pere;
+		if ( y.pere == sentinelle )
+			racine = x;
+		else if ( y == y.pere.gauche )
+			y.pere.gauche = x;
+		else
+			y.pere.droit = x;
+
+		if ( y != z )
+		{
+			z.cle = y.cle;
+			svt = z;
+		}
+		// les maxima changent du père de y jusqu'à la racine, z compris
+		// puisque c'est un ancêtre de y
+		for (Noeud p = x.pere; p != sentinelle; p = p.pere)
+			p.majMax();
+		if ( y.couleur == 'N' )
+			supprimerCorrection(x);
+
+		taille--;
+		return svt;
+	}
+
+	private void supprimerCorrection(Noeud x)
+	{
+		while ( x != racine && x.couleur == 'N' )
+		{
+			if ( x == x.pere.gauche )
+			{
+				Noeud w = x.pere.droit;
+				if ( w.couleur == 'R' )
+				{
+					w.couleur = 'N';
+					x.pere.couleur = 'R';
+					rotationGauche(x.pere);
+					w = x.pere.droit;
+				}
+				if ( w.gauche.couleur == 'N' && w.droit.couleur == 'N' )
+				{
+					w.couleur = 'R';
+					x = x.pere;
+				} else
+				{
+					if ( w.droit.couleur == 'N' )
+					{
+						w.gauche.couleur = 'N';
+						w.couleur = 'R';
+						rotationDroite(w);
+						w = x.pere.droit;
+					}
+					w.couleur = x.pere.couleur;
+					x.pere.couleur = 'N';
+					w.droit.couleur = 'N';
+					rotationGauche(x.pere);
+					x = racine;
+				}
+			} else
+			{
+				Noeud w = x.pere.gauche;
+				if ( w.couleur == 'R' )
+				{
+					w.couleur = 'N';
+					x.pere.couleur = 'R';
+					rotationDroite(x.pere);
+					w = x.pere.gauche;
+				}
+				if ( w.droit.couleur == 'N' && w.gauche.couleur == 'N' )
+				{
+					w.couleur = 'R';
+					x = x.pere;
+				} else
+				{
+					if ( w.gauche.couleur == 'N' )
+					{
+						w.droit.couleur = 'N';
+						w.couleur = 'R';
+						rotationGauche(w);
+						w = x.pere.gauche;
+					}
+					w.couleur = x.pere.couleur;
+					x.pere.couleur = 'N';
+					w.gauche.couleur = 'N';
+					rotationDroite(x.pere);
+					x = racine;
+				}
+			}
+		}
+		x.couleur = 'N';
+	}
+
+	/**
+	 * Rotation autour de z. Le sous-arbre garde le même ensemble
+	 * d'intervalles : son nouveau sommet reprend le max de z, puis z
+	 * recalcule le sien.
+	 */
+	private void rotationGauche(Noeud z)
+	{
+		Noeud tmp = z.droit;
+		z.droit = tmp.gauche;
+		if ( tmp.gauche != sentinelle )
+			tmp.gauche.pere = z;
+
+		tmp.pere = z.pere;
+		if ( z.pere == sentinelle )
+			racine = tmp;
+		else if ( z.pere.gauche == z )
+			z.pere.gauche = tmp;
+		else
+			z.pere.droit = tmp;
+
+		tmp.gauche = z;
+		z.pere = tmp;
+
+		tmp.max = z.max;
+		z.majMax();
+	}
+
+	private void rotationDroite(Noeud z)
+	{
+		Noeud tmp = z.gauche;
+		z.gauche = tmp.droit;
+		if ( tmp.droit != sentinelle )
+			tmp.droit.pere = z;
+
+		tmp.pere = z.pere;
+		if ( z.pere == sentinelle )
+			racine = tmp;
+		else if ( z.pere.droit == z )
+			z.pere.droit = tmp;
+		else
+			z.pere.gauche = tmp;
+
+		tmp.droit = z;
+		z.pere = tmp;
+
+		tmp.max = z.max;
+		z.majMax();
+	}
+}
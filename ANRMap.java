@@ -0,0 +1,1183 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Table ordonnée sur un arbre rouge-noir : chaque noeud porte une clé et sa
+ * valeur. Le rééquilibrage est celui de {@link ANR}.
+ * </p>
+ *
+ * <p>
+ * get, put, putIfAbsent, computeIfAbsent, computeIfPresent, compute et merge
+ * ne descendent qu'une fois dans l'arbre : la recherche retient le noeud où
+ * la clé absente serait accrochée. Les fonctions passées à compute... et
+ * merge peuvent lire la table mais ne doivent pas la modifier
+ * (ConcurrentModificationException).
+ * </p>
+ *
+ * <p>
+ * Les vues (subMap, headMap, tailMap, descendingMap, ensembles des clés et
+ * des entrées) sont construites comme celles d'{@link ANR}. Les noeuds ne
+ * comptant pas leurs descendants, la taille d'une vue bornée se calcule en
+ * la parcourant.
+ * </p>
+ *
+ * @param <K>
+ *            le type des clés
+ * @param <V>
+ *            le type des valeurs
+ */
+public class ANRMap<K extends Comparable<K>, V> extends AbstractMap<K, V> implements NavigableMap<K, V>
+{
+	private Noeud racine;
+	private int taille;
+	private Comparator<? super K> cmp;
+	// cmp est l'ordre naturel : les clés Integer, Long et String sont
+	// comparées directement (cf comparer)
+	private boolean ordreNaturel;
+	private final Noeud sentinelle = new Noeud(null, null);
+	// dernier noeud visité par chercher et côté où la clé cherchée y serait
+	// accrochée, valables jusqu'à la recherche suivante : à recopier avant
+	// d'appeler une fonction de l'utilisateur, qui peut lire la table
+	private Noeud dernier;
+	private boolean aGauche;
+	// ajouts et suppressions de noeuds, pour détecter les fonctions qui
+	// modifient la table
+	private int modifications;
+
+	private class Noeud implements Map.Entry<K, V>
+	{
+		K cle;
+		V valeur;
+		Noeud gauche;
+		Noeud droit;
+		Noeud pere;
+		char couleur;
+
+		Noeud(K cle, V valeur)
+		{
+			this.cle = cle;
+			this.valeur = valeur;
+			couleur = 'N';
+			gauche = sentinelle;
+			droit = sentinelle;
+			pere = sentinelle;
+		}
+
+		Noeud minimum()
+		{
+			Noeud x = this;
+			while ( x.gauche != sentinelle ) x = x.gauche;
+			return x;
+		}
+
+		Noeud maximum()
+		{
+			Noeud x = this;
+			while ( x.droit != sentinelle ) x = x.droit;
+			return x;
+		}
+
+		Noeud suivant()
+		{
+			Noeud x = this;
+			if ( x.droit != sentinelle )
+				return x.droit.minimum();
+
+			Noeud y = x.pere;
+			while ( y != sentinelle && x == y.droit )
+			{
+				x = y;
+				y = y.pere;
+			}
+			return y;
+		}
+
+		Noeud precedent()
+		{
+			Noeud x = this;
+			if ( x.gauche != sentinelle )
+				return x.gauche.maximum();
+
+			Noeud y = x.pere;
+			while ( y != sentinelle && x == y.gauche )
+			{
+				x = y;
+				y = y.pere;
+			}
+			return y;
+		}
+
+		public K getKey() {return cle;}
+
+		public V getValue() {return valeur;}
+
+		public V setValue(V valeur)
+		{
+			V ancienne = this.valeur;
+			this.valeur = valeur;
+			return ancienne;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if ( !(o instanceof Map.Entry) )
+				return false;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return Objects.equals(cle, e.getKey()) && Objects.equals(valeur, e.getValue());
+		}
+
+		@Override
+		public int hashCode() {return Objects.hashCode(cle) ^ Objects.hashCode(valeur);}
+
+		@Override
+		public String toString() {return cle + "=" + valeur;}
+	}
+
+	// Constructeurs
+
+	/**
+	 * Crée une table vide. Les clés sont ordonnées selon l'ordre naturel
+	 */
+	@SuppressWarnings("unchecked")
+	public ANRMap()
+	{
+		cmp = (Comparator<K>) Comparator.naturalOrder();
+		ordreNaturel = true;
+		racine = sentinelle;
+	}
+
+	/**
+	 * Crée une table vide. Les clés sont comparées selon l'ordre imposé par
+	 * le comparateur
+	 *
+	 * @param cmp
+	 *            le comparateur utilisé pour définir l'ordre des clés
+	 */
+	public ANRMap(Comparator<? super K> cmp)
+	{
+		this.cmp = cmp;
+		ordreNaturel = Comparator.naturalOrder().equals(cmp);
+		racine = sentinelle;
+	}
+
+	/**
+	 * Constructeur par recopie. Crée une table qui contient les mêmes
+	 * associations que m. L'ordre des clés est l'ordre naturel.
+	 *
+	 * @param m
+	 *            la table à copier
+	 */
+	public ANRMap(Map<? extends K, ? extends V> m)
+	{
+		this();
+		putAll(m);
+	}
+
+	/**
+	 * Compare deux clés comme cmp, directement pour les clés Integer, Long et
+	 * String en ordre naturel
+	 */
+	private int comparer(K a, K b)
+	{
+		if ( ordreNaturel )
+		{
+			if ( a instanceof Integer ) return ((Integer) a).compareTo((Integer) b);
+			if ( a instanceof Long ) return ((Long) a).compareTo((Long) b);
+			if ( a instanceof String ) return ((String) a).compareTo((String) b);
+		}
+		return cmp.compare(a, b);
+	}
+
+	/**
+	 * Recherche une clé. Si elle est absente, dernier et aGauche indiquent où
+	 * l'accrocher (cf {@link #accrocher}) jusqu'à la recherche suivante
+	 *
+	 * @return le noeud qui contient la clé, la sentinelle si elle est absente
+	 */
+	@SuppressWarnings("unchecked")
+	private Noeud chercher(Object o)
+	{
+		K cle = (K) o;
+		Noeud x = racine;
+		dernier = sentinelle;
+		while ( x != sentinelle )
+		{
+			int c = comparer(cle, x.cle);
+			if ( c == 0 )
+				return x;
+			dernier = x;
+			aGauche = c < 0;
+			x = aGauche ? x.gauche : x.droit;
+		}
+		return x;
+	}
+
+	/**
+	 * Ajoute un noeud sous pere, là où une recherche infructueuse s'est
+	 * arrêtée
+	 *
+	 * @param pere
+	 *            le dernier noeud visité, la sentinelle si l'arbre est vide
+	 * @param aGauche
+	 *            true si le noeud est accroché à gauche de pere
+	 */
+	private Noeud accrocher(Noeud pere, boolean aGauche, K cle, V valeur)
+	{
+		// comme TreeMap, la première clé est comparée à elle-même : une clé
+		// nulle ou non comparable est refusée dès le premier ajout
+		if ( racine == sentinelle )
+			comparer(cle, cle);
+
+		Noeud z = new Noeud(cle, valeur);
+		z.pere = pere;
+		if ( pere == sentinelle )
+			racine = z;
+		else if ( aGauche )
+			pere.gauche = z;
+		else
+			pere.droit = z;
+		z.couleur = 'R';
+		ajouterCorrection(z);
+		taille++;
+		modifications++;
+		return z;
+	}
+
+	private void verifierModifications(int avant)
+	{
+		if ( modifications != avant )
+			throw new ConcurrentModificationException();
+	}
+
+	// Méthodes de Map
+
+	@Override
+	public int size() {return taille;}
+
+	@Override
+	public boolean isEmpty() {return racine == sentinelle;}
+
+	@Override
+	public void clear()
+	{
+		racine = sentinelle;
+		taille = 0;
+		modifications++;
+	}
+
+	@Override
+	public boolean containsKey(Object o) {return chercher(o) != sentinelle;}
+
+	@Override
+	public V get(Object o) {return chercher(o).valeur;}
+
+	@Override
+	public V put(K cle, V valeur)
+	{
+		Noeud x = chercher(cle);
+		if ( x != sentinelle )
+			return x.setValue(valeur);
+		accrocher(dernier, aGauche, cle, valeur);
+		return null;
+	}
+
+	@Override
+	public V putIfAbsent(K cle, V valeur)
+	{
+		Noeud x = chercher(cle);
+		if ( x == sentinelle )
+		{
+			accrocher(dernier, aGauche, cle, valeur);
+			return null;
+		}
+		V ancienne = x.valeur;
+		if ( ancienne == null )
+			x.valeur = valeur;
+		return ancienne;
+	}
+
+	@Override
+	public V remove(Object o)
+	{
+		Noeud x = chercher(o);
+		if ( x == sentinelle )
+			return null;
+		V valeur = x.valeur;
+		supprimer(x);
+		return valeur;
+	}
+
+	@Override
+	public V computeIfAbsent(K cle, Function<? super K, ? extends V> f)
+	{
+		Objects.requireNonNull(f);
+		Noeud x = chercher(cle);
+		if ( x != sentinelle && x.valeur != null )
+			return x.valeur;
+		Noeud pere = dernier;
+		boolean gauche = aGauche;
+
+		int avant = modifications;
+		V valeur = f.apply(cle);
+		verifierModifications(avant);
+		if ( valeur == null )
+			return null;
+		if ( x != sentinelle )
+			x.valeur = valeur;
+		else
+			accrocher(pere, gauche, cle, valeur);
+		return valeur;
+	}
+
+	@Override
+	public V computeIfPresent(K cle, BiFunction<? super K, ? super V, ? extends V> f)
+	{
+		Objects.requireNonNull(f);
+		Noeud x = chercher(cle);
+		if ( x == sentinelle || x.valeur == null )
+			return null;
+
+		int avant = modifications;
+		V valeur = f.apply(cle, x.valeur);
+		verifierModifications(avant);
+		return remplacer(x, valeur);
+	}
+
+	@Override
+	public V compute(K cle, BiFunction<? super K, ? super V, ? extends V> f)
+	{
+		Objects.requireNonNull(f);
+		Noeud x = chercher(cle);
+		Noeud pere = dernier;
+		boolean gauche = aGauche;
+
+		int avant = modifications;
+		V valeur = f.apply(cle, x.valeur);
+		verifierModifications(avant);
+		if ( x != sentinelle )
+			return remplacer(x, valeur);
+		if ( valeur != null )
+			accrocher(pere, gauche, cle, valeur);
+		return valeur;
+	}
+
+	@Override
+	public V merge(K cle, V valeur, BiFunction<? super V, ? super V, ? extends V> f)
+	{
+		Objects.requireNonNull(valeur);
+		Objects.requireNonNull(f);
+		Noeud x = chercher(cle);
+		if ( x == sentinelle )
+		{
+			accrocher(dernier, aGauche, cle, valeur);
+			return valeur;
+		}
+		if ( x.valeur == null )
+		{
+			x.valeur = valeur;
+			return valeur;
+		}
+
+		int avant = modifications;
+		V nouvelle = f.apply(x.valeur, valeur);
+		verifierModifications(avant);
+		return remplacer(x, nouvelle);
+	}
+
+	/**
+	 * Donne une nouvelle valeur au noeud x, ou le supprime si elle est nulle
+	 *
+	 * @return la nouvelle valeur
+	 */
+	private V remplacer(Noeud x, V valeur)
+	{
+		if ( valeur == null )
+			supprimer(x);
+		else
+			x.valeur = valeur;
+		return valeur;
+	}
+
+	// Navigation
+
+	/**
+	 * Renvoie le dernier noeud de clé strictement inférieure à k (inférieure
+	 * ou égale si inclus), la sentinelle s'il n'y en a pas
+	 */
+	private Noeud plancher(K k, boolean inclus)
+	{
+		Noeud x = racine, res = sentinelle;
+		while ( x != sentinelle )
+		{
+			int c = comparer(k, x.cle);
+			if ( c > 0 || (inclus && c == 0) )
+			{
+				res = x;
+				x = x.droit;
+			} else
+				x = x.gauche;
+		}
+		return res;
+	}
+
+	/**
+	 * Renvoie le premier noeud de clé strictement supérieure à k (supérieure
+	 * ou égale si inclus), la sentinelle s'il n'y en a pas
+	 */
+	private Noeud plafond(K k, boolean inclus)
+	{
+		Noeud x = racine, res = sentinelle;
+		while ( x != sentinelle )
+		{
+			int c = comparer(k, x.cle);
+			if ( c < 0 || (inclus && c == 0) )
+			{
+				res = x;
+				x = x.gauche;
+			} else
+				x = x.droit;
+		}
+		return res;
+	}
+
+	private Noeud premier() {return racine == sentinelle ? sentinelle : racine.minimum();}
+
+	private Noeud dernierNoeud() {return racine == sentinelle ? sentinelle : racine.maximum();}
+
+	/**
+	 * Copie figée de l'association du noeud x, null si x est la sentinelle :
+	 * comme pour TreeMap, les entrées renvoyées par la navigation ne
+	 * permettent pas de modifier la table
+	 */
+	private Map.Entry<K, V> exporter(Noeud x)
+	{
+		return x == sentinelle ? null : new AbstractMap.SimpleImmutableEntry<K, V>(x.cle, x.valeur);
+	}
+
+	private K cle(Noeud x)
+	{
+		if ( x == sentinelle ) throw new NoSuchElementException();
+		return x.cle;
+	}
+
+	private K cleOuNull(Noeud x) {return x == sentinelle ? null : x.cle;}
+
+	/**
+	 * Supprime le noeud x et renvoie son association, null si x est la
+	 * sentinelle
+	 */
+	private Map.Entry<K, V> extraire(Noeud x)
+	{
+		Map.Entry<K, V> e = exporter(x);
+		if ( x != sentinelle )
+			supprimer(x);
+		return e;
+	}
+
+	public Map.Entry<K, V> lowerEntry(K k) {return exporter(plancher(k, false));}
+
+	public K lowerKey(K k) {return cleOuNull(plancher(k, false));}
+
+	public Map.Entry<K, V> floorEntry(K k) {return exporter(plancher(k, true));}
+
+	public K floorKey(K k) {return cleOuNull(plancher(k, true));}
+
+	public Map.Entry<K, V> ceilingEntry(K k) {return exporter(plafond(k, true));}
+
+	public K ceilingKey(K k) {return cleOuNull(plafond(k, true));}
+
+	public Map.Entry<K, V> higherEntry(K k) {return exporter(plafond(k, false));}
+
+	public K higherKey(K k) {return cleOuNull(plafond(k, false));}
+
+	public Map.Entry<K, V> firstEntry() {return exporter(premier());}
+
+	public Map.Entry<K, V> lastEntry() {return exporter(dernierNoeud());}
+
+	public Map.Entry<K, V> pollFirstEntry() {return extraire(premier());}
+
+	public Map.Entry<K, V> pollLastEntry() {return extraire(dernierNoeud());}
+
+	public K firstKey() {return cle(premier());}
+
+	public K lastKey() {return cle(dernierNoeud());}
+
+	/**
+	 * Renvoie le comparateur de la table, null pour l'ordre naturel
+	 */
+	public Comparator<? super K> comparator()
+	{
+		return ordreNaturel ? null : cmp;
+	}
+
+	// Vues
+
+	private Vue entiere() {return new Vue(null, true, true, null, true, true, false);}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {return entiere().entrySet();}
+
+	@Override
+	public Set<K> keySet() {return navigableKeySet();}
+
+	public NavigableSet<K> navigableKeySet() {return entiere().navigableKeySet();}
+
+	public NavigableSet<K> descendingKeySet() {return entiere().descendingKeySet();}
+
+	public NavigableMap<K, V> descendingMap() {return entiere().descendingMap();}
+
+	public NavigableMap<K, V> subMap(K de, boolean deInclus, K a, boolean aInclus)
+	{
+		return entiere().subMap(de, deInclus, a, aInclus);
+	}
+
+	public NavigableMap<K, V> headMap(K a, boolean inclus) {return entiere().headMap(a, inclus);}
+
+	public NavigableMap<K, V> tailMap(K de, boolean inclus) {return entiere().tailMap(de, inclus);}
+
+	public SortedMap<K, V> subMap(K de, K a) {return subMap(de, true, a, false);}
+
+	public SortedMap<K, V> headMap(K a) {return headMap(a, false);}
+
+	public SortedMap<K, V> tailMap(K de) {return tailMap(de, true);}
+
+	/**
+	 * <p>
+	 * Vue d'une partie de la table, entre deux bornes éventuelles, dans
+	 * l'ordre croissant ou décroissant. Les modifications de la vue sont
+	 * faites dans la table et réciproquement.
+	 * </p>
+	 *
+	 * <p>
+	 * Les bornes sont toujours exprimées dans l'ordre de la table, comme dans
+	 * la vue d'{@link ANR}.
+	 * </p>
+	 */
+	private class Vue extends AbstractMap<K, V> implements NavigableMap<K, V>
+	{
+		final K bas, haut;
+		final boolean depuisDebut, jusquAFin, basInclus, hautInclus;
+		final boolean decroissant;
+
+		Vue(K bas, boolean depuisDebut, boolean basInclus, K haut, boolean jusquAFin, boolean hautInclus, boolean decroissant)
+		{
+			if ( !depuisDebut && !jusquAFin && comparer(bas, haut) > 0 )
+				throw new IllegalArgumentException("borne inférieure supérieure à la borne supérieure");
+			this.bas = bas;
+			this.depuisDebut = depuisDebut;
+			this.basInclus = basInclus;
+			this.haut = haut;
+			this.jusquAFin = jusquAFin;
+			this.hautInclus = hautInclus;
+			this.decroissant = decroissant;
+		}
+
+		// Bornes, dans l'ordre de la table
+
+		/**
+		 * Teste si k est sous la borne inférieure. Si inclus est faux, k est
+		 * une borne exclue et peut être égal à une borne inférieure exclue.
+		 */
+		private boolean tropBas(K k, boolean inclus)
+		{
+			if ( depuisDebut )
+				return false;
+			int c = comparer(k, bas);
+			return c < 0 || (c == 0 && inclus && !basInclus);
+		}
+
+		private boolean tropHaut(K k, boolean inclus)
+		{
+			if ( jusquAFin )
+				return false;
+			int c = comparer(k, haut);
+			return c > 0 || (c == 0 && inclus && !hautInclus);
+		}
+
+		@SuppressWarnings("unchecked")
+		private boolean dansVue(Object o)
+		{
+			K k = (K) o;
+			return !tropBas(k, true) && !tropHaut(k, true);
+		}
+
+		private Noeud plusPetit()
+		{
+			Noeud x = depuisDebut ? premier() : plafond(bas, basInclus);
+			return x == sentinelle || tropHaut(x.cle, true) ? sentinelle : x;
+		}
+
+		private Noeud plusGrand()
+		{
+			Noeud x = jusquAFin ? dernierNoeud() : plancher(haut, hautInclus);
+			return x == sentinelle || tropBas(x.cle, true) ? sentinelle : x;
+		}
+
+		private Noeud plancherVue(K k, boolean inclus)
+		{
+			Noeud x = plancher(k, inclus);
+			if ( x != sentinelle && tropHaut(x.cle, true) )
+				x = plusGrand();
+			return x == sentinelle || tropBas(x.cle, true) ? sentinelle : x;
+		}
+
+		private Noeud plafondVue(K k, boolean inclus)
+		{
+			Noeud x = plafond(k, inclus);
+			if ( x != sentinelle && tropBas(x.cle, true) )
+				x = plusPetit();
+			return x == sentinelle || tropHaut(x.cle, true) ? sentinelle : x;
+		}
+
+		// premier et dernier noeud, plus petit et plus grand selon le sens
+		private Noeud debut() {return decroissant ? plusGrand() : plusPetit();}
+
+		private Noeud fin() {return decroissant ? plusPetit() : plusGrand();}
+
+		private Noeud inferieur(K k, boolean inclus) {return decroissant ? plafondVue(k, inclus) : plancherVue(k, inclus);}
+
+		private Noeud superieur(K k, boolean inclus) {return decroissant ? plancherVue(k, inclus) : plafondVue(k, inclus);}
+
+		/**
+		 * Crée une vue plus petite, de même sens. Une borne absente garde
+		 * la valeur de cette vue.
+		 */
+		private Vue restreindre(K b, boolean aBas, boolean bInclus, K h, boolean aHaut, boolean hInclus)
+		{
+			if ( aBas && (tropBas(b, bInclus) || tropHaut(b, bInclus)) )
+				throw new IllegalArgumentException("borne hors de la vue : " + b);
+			if ( aHaut && (tropBas(h, hInclus) || tropHaut(h, hInclus)) )
+				throw new IllegalArgumentException("borne hors de la vue : " + h);
+
+			return new Vue(aBas ? b : bas, aBas ? false : depuisDebut, aBas ? bInclus : basInclus,
+					aHaut ? h : haut, aHaut ? false : jusquAFin, aHaut ? hInclus : hautInclus, decroissant);
+		}
+
+		// Méthodes de Map
+
+		@Override
+		public int size()
+		{
+			if ( depuisDebut && jusquAFin )
+				return taille;
+			int n = 0;
+			for (Iterator<K> it = new ParcoursCles(this, false); it.hasNext(); it.next())
+				n++;
+			return n;
+		}
+
+		@Override
+		public boolean isEmpty() {return plusPetit() == sentinelle;}
+
+		@Override
+		public boolean containsKey(Object o) {return dansVue(o) && ANRMap.this.containsKey(o);}
+
+		@Override
+		public V get(Object o) {return dansVue(o) ? ANRMap.this.get(o) : null;}
+
+		@Override
+		public V put(K cle, V valeur)
+		{
+			if ( !dansVue(cle) )
+				throw new IllegalArgumentException("clé hors de la vue : " + cle);
+			return ANRMap.this.put(cle, valeur);
+		}
+
+		@Override
+		public V remove(Object o) {return dansVue(o) ? ANRMap.this.remove(o) : null;}
+
+		@Override
+		public void clear()
+		{
+			if ( depuisDebut && jusquAFin )
+			{
+				ANRMap.this.clear();
+				return;
+			}
+			for (Iterator<K> it = new ParcoursCles(this, false); it.hasNext();)
+			{
+				it.next();
+				it.remove();
+			}
+		}
+
+		@Override
+		public Set<Map.Entry<K, V>> entrySet() {return new Entrees(this);}
+
+		@Override
+		public Set<K> keySet() {return navigableKeySet();}
+
+		// Méthodes de NavigableMap, dans le sens de la vue
+
+		public Comparator<? super K> comparator()
+		{
+			Comparator<? super K> c = ANRMap.this.comparator();
+			if ( !decroissant )
+				return c;
+			return c == null ? Collections.reverseOrder() : Collections.reverseOrder(c);
+		}
+
+		public Map.Entry<K, V> lowerEntry(K k) {return exporter(inferieur(k, false));}
+
+		public K lowerKey(K k) {return cleOuNull(inferieur(k, false));}
+
+		public Map.Entry<K, V> floorEntry(K k) {return exporter(inferieur(k, true));}
+
+		public K floorKey(K k) {return cleOuNull(inferieur(k, true));}
+
+		public Map.Entry<K, V> ceilingEntry(K k) {return exporter(superieur(k, true));}
+
+		public K ceilingKey(K k) {return cleOuNull(superieur(k, true));}
+
+		public Map.Entry<K, V> higherEntry(K k) {return exporter(superieur(k, false));}
+
+		public K higherKey(K k) {return cleOuNull(superieur(k, false));}
+
+		public Map.Entry<K, V> firstEntry() {return exporter(debut());}
+
+		public Map.Entry<K, V> lastEntry() {return exporter(fin());}
+
+		public Map.Entry<K, V> pollFirstEntry() {return extraire(debut());}
+
+		public Map.Entry<K, V> pollLastEntry() {return extraire(fin());}
+
+		public K firstKey() {return cle(debut());}
+
+		public K lastKey() {return cle(fin());}
+
+		public NavigableMap<K, V> descendingMap()
+		{
+			return new Vue(bas, depuisDebut, basInclus, haut, jusquAFin, hautInclus, !decroissant);
+		}
+
+		public NavigableSet<K> navigableKeySet() {return new Cles(this);}
+
+		public NavigableSet<K> descendingKeySet() {return new Cles((Vue) descendingMap());}
+
+		public NavigableMap<K, V> subMap(K de, boolean deInclus, K a, boolean aInclus)
+		{
+			if ( decroissant )
+				return restreindre(a, true, aInclus, de, true, deInclus);
+			return restreindre(de, true, deInclus, a, true, aInclus);
+		}
+
+		public NavigableMap<K, V> headMap(K a, boolean inclus)
+		{
+			if ( decroissant )
+				return restreindre(a, true, inclus, null, false, false);
+			return restreindre(null, false, false, a, true, inclus);
+		}
+
+		public NavigableMap<K, V> tailMap(K de, boolean inclus)
+		{
+			if ( decroissant )
+				return restreindre(null, false, false, de, true, inclus);
+			return restreindre(de, true, inclus, null, false, false);
+		}
+
+		public SortedMap<K, V> subMap(K de, K a) {return subMap(de, true, a, false);}
+
+		public SortedMap<K, V> headMap(K a) {return headMap(a, false);}
+
+		public SortedMap<K, V> tailMap(K de) {return tailMap(de, true);}
+	}
+
+	/**
+	 * Parcours d'une vue, qui part de son premier noeud et s'arrête à la
+	 * première clé hors de la vue
+	 */
+	private abstract class Parcours<T> implements Iterator<T>
+	{
+		private final Vue vue;
+		private final boolean descendant;
+		private Noeud suiv, prec;
+
+		Parcours(Vue vue, boolean inverse)
+		{
+			this.vue = vue;
+			descendant = vue.decroissant != inverse;
+			prec = sentinelle;
+			suiv = descendant ? vue.plusGrand() : vue.plusPetit();
+		}
+
+		abstract T element(Noeud x);
+
+		public boolean hasNext()
+		{
+			return suiv != sentinelle;
+		}
+
+		public T next()
+		{
+			if ( suiv == sentinelle ) throw new NoSuchElementException();
+			prec = suiv;
+			suiv = descendant ? suiv.precedent() : suiv.suivant();
+			if ( suiv != sentinelle && (descendant ? vue.tropBas(suiv.cle, true) : vue.tropHaut(suiv.cle, true)) )
+				suiv = sentinelle;
+			return element(prec);
+		}
+
+		public void remove()
+		{
+			if ( prec == sentinelle ) throw new IllegalStateException();
+			// supprimer peut déplacer l'association du successeur dans prec,
+			// mais ne touche jamais au prédécesseur
+			Noeud svt = supprimer(prec);
+			if ( !descendant && suiv != sentinelle )
+				suiv = svt;
+			prec = sentinelle;
+		}
+	}
+
+	private class ParcoursEntrees extends Parcours<Map.Entry<K, V>>
+	{
+		ParcoursEntrees(Vue vue) {super(vue, false);}
+
+		Map.Entry<K, V> element(Noeud x) {return x;}
+	}
+
+	private class ParcoursCles extends Parcours<K>
+	{
+		ParcoursCles(Vue vue, boolean inverse) {super(vue, inverse);}
+
+		K element(Noeud x) {return x.cle;}
+	}
+
+	/**
+	 * Les associations d'une vue. Les entrées parcourues sont les noeuds
+	 * eux-mêmes : setValue modifie la table.
+	 */
+	private class Entrees extends AbstractSet<Map.Entry<K, V>>
+	{
+		private final Vue vue;
+
+		Entrees(Vue vue) {this.vue = vue;}
+
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {return new ParcoursEntrees(vue);}
+
+		@Override
+		public int size() {return vue.size();}
+
+		@Override
+		public boolean isEmpty() {return vue.isEmpty();}
+
+		@Override
+		public void clear() {vue.clear();}
+
+		/**
+		 * Le noeud de l'association o, la sentinelle si elle n'est pas dans la
+		 * vue
+		 */
+		private Noeud trouver(Object o)
+		{
+			if ( !(o instanceof Map.Entry) )
+				return sentinelle;
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			if ( !vue.dansVue(e.getKey()) )
+				return sentinelle;
+			Noeud x = chercher(e.getKey());
+			return x != sentinelle && Objects.equals(x.valeur, e.getValue()) ? x : sentinelle;
+		}
+
+		@Override
+		public boolean contains(Object o) {return trouver(o) != sentinelle;}
+
+		@Override
+		public boolean remove(Object o)
+		{
+			Noeud x = trouver(o);
+			if ( x == sentinelle )
+				return false;
+			supprimer(x);
+			return true;
+		}
+	}
+
+	/**
+	 * Les clés d'une vue, dans son sens
+	 */
+	private class Cles extends AbstractSet<K> implements NavigableSet<K>
+	{
+		private final Vue vue;
+
+		Cles(Vue vue) {this.vue = vue;}
+
+		@Override
+		public Iterator<K> iterator() {return new ParcoursCles(vue, false);}
+
+		public Iterator<K> descendingIterator() {return new ParcoursCles(vue, true);}
+
+		@Override
+		public int size() {return vue.size();}
+
+		@Override
+		public boolean isEmpty() {return vue.isEmpty();}
+
+		@Override
+		public void clear() {vue.clear();}
+
+		@Override
+		public boolean contains(Object o) {return vue.containsKey(o);}
+
+		@Override
+		public boolean remove(Object o)
+		{
+			if ( !vue.containsKey(o) )
+				return false;
+			vue.remove(o);
+			return true;
+		}
+
+		public Comparator<? super K> comparator() {return vue.comparator();}
+
+		public K first() {return vue.firstKey();}
+
+		public K last() {return vue.lastKey();}
+
+		public K lower(K k) {return vue.lowerKey(k);}
+
+		public K floor(K k) {return vue.floorKey(k);}
+
+		public K ceiling(K k) {return vue.ceilingKey(k);}
+
+		public K higher(K k) {return vue.higherKey(k);}
+
+		public K pollFirst()
+		{
+			Map.Entry<K, V> e = vue.pollFirstEntry();
+			return e == null ? null : e.getKey();
+		}
+
+		public K pollLast()
+		{
+			Map.Entry<K, V> e = vue.pollLastEntry();
+			return e == null ? null : e.getKey();
+		}
+
+		public NavigableSet<K> descendingSet() {return new Cles((Vue) vue.descendingMap());}
+
+		public NavigableSet<K> subSet(K de, boolean deInclus, K a, boolean aInclus)
+		{
+			return new Cles((Vue) vue.subMap(de, deInclus, a, aInclus));
+		}
+
+		public NavigableSet<K> headSet(K a, boolean inclus) {return new Cles((Vue) vue.headMap(a, inclus));}
+
+		public NavigableSet<K> tailSet(K de, boolean inclus) {return new Cles((Vue) vue.tailMap(de, inclus));}
+
+		public SortedSet<K> subSet(K de, K a) {return subSet(de, true, a, false);}
+
+		public SortedSet<K> headSet(K a) {return headSet(a, false);}
+
+		public SortedSet<K> tailSet(K de) {return tailSet(de, true);}
+	}
+
+	// Rééquilibrage, comme dans ANR
+
+	private void ajouterCorrection(Noeud z)
+	{
+		while ( z.pere.couleur == 'R' )
+		{
+			Noeud p = z.pere, g = p.pere;
+			if ( p == g.gauche )
+			{
+				Noeud y = g.droit;
+				if ( y.couleur == 'R' )
+				{
+					p.couleur = 'N';
+					y.couleur = 'N';
+					g.couleur = 'R';
+					z = g;
+				} else
+				{
+					if ( z == p.droit )
+					{
+						z = p;
+						rotationGauche(z);
+					}
+					z.pere.couleur = 'N';
+					z.pere.pere.couleur = 'R';
+					rotationDroite(z.pere.pere);
+				}
+			} else
+			{
+				Noeud y = g.gauche;
+				if ( y.couleur == 'R' )
+				{
+					p.couleur = 'N';
+					y.couleur = 'N';
+					g.couleur = 'R';
+					z = g;
+				} else
+				{
+					if ( z == p.gauche )
+					{
+						z = p;
+						rotationDroite(z);
+					}
+					z.pere.couleur = 'N';
+					z.pere.pere.couleur = 'R';
+					rotationGauche(z.pere.pere);
+				}
+			}
+		}
+		racine.couleur = 'N';
+	}
+
+	/**
+	 * Supprime le noeud z
+	 *
+	 * @return le noeud contenant la clé qui suit celle de z
+	 */
+	private Noeud supprimer(Noeud z)
+	{
+		Noeud y, x;
+		Noeud svt = z.suivant();
+
+		y = (z.gauche == sentinelle || z.droit == sentinelle) ? z : svt;
+		x = y.gauche != sentinelle ? y.gauche : y.droit;
+
+		x.pere = y.pere;
+		if ( y.pere == sentinelle )
+			racine = x;
+		else if ( y == y.pere.gauche )
+			y.pere.gauche = x;
+		else
+			y.pere.droit = x;
+
+		if ( y != z )
+		{
+			z.cle = y.cle;
+			z.valeur = y.valeur;
+			svt = z;
+		}
+		if ( y.couleur == 'N' )
+			supprimerCorrection(x);
+
+		taille--;
+		modifications++;
+		return svt;
+	}
+
+	private void supprimerCorrection(Noeud x)
+	{
+		while ( x != racine && x.couleur == 'N' )
+		{
+			if ( x == x.pere.gauche )
+			{
+				Noeud w = x.pere.droit;
+				if ( w.couleur == 'R' )
+				{
+					w.couleur = 'N';
+					x.pere.couleur = 'R';
+					rotationGauche(x.pere);
+					w = x.pere.droit;
+				}
+				if ( w.gauche.couleur == 'N' && w.droit.couleur == 'N' )
+				{
+					w.couleur = 'R';
+					x = x.pere;
+				} else
+				{
+					if ( w.droit.couleur == 'N' )
+					{
+						w.gauche.couleur = 'N';
+						w.couleur = 'R';
+						rotationDroite(w);
+						w = x.pere.droit;
+					}
+					w.couleur = x.pere.couleur;
+					x.pere.couleur = 'N';
+					w.droit.couleur = 'N';
+					rotationGauche(x.pere);
+					x = racine;
+				}
+			} else
+			{
+				Noeud w = x.pere.gauche;
+				if ( w.couleur == 'R' )
+				{
+					w.couleur = 'N';
+					x.pere.couleur = 'R';
+					rotationDroite(x.pere);
+					w = x.pere.gauche;
+				}
+				if ( w.droit.couleur == 'N' && w.gauche.couleur == 'N' )
+				{
+					w.couleur = 'R';
+					x = x.pere;
+				} else
+				{
+					if ( w.gauche.couleur == 'N' )
+					{
+						w.droit.couleur = 'N';
+						w.couleur = 'R';
+						rotationGauche(w);
+						w = x.pere.gauche;
+					}
+					w.couleur = x.pere.couleur;
+					x.pere.couleur = 'N';
+					w.gauche.couleur = 'N';
+					rotationDroite(x.pere);
+					x = racine;
+				}
+			}
+		}
+		x.couleur = 'N';
+	}
+
+	private void rotationGauche(Noeud z)
+	{
+		Noeud tmp = z.droit;
+		z.droit = tmp.gauche;
+		if ( tmp.gauche != sentinelle )
+			tmp.gauche.pere = z;
+
+		tmp.pere = z.pere;
+		if ( z.pere == sentinelle )
+			racine = tmp;
+		else if ( z.pere.gauche == z )
+			z.pere.gauche = tmp;
+		else
+			z.pere.droit = tmp;
+
+		tmp.gauche = z;
+		z.pere = tmp;
+	}
+
+	private void rotationDroite(Noeud z)
+	{
+		Noeud tmp = z.gauche;
+		z.gauche = tmp.droit;
+		if ( tmp.droit != sentinelle )
+			tmp.droit.pere = z;
+
+		tmp.pere = z.pere;
+		if ( z.pere == sentinelle )
+			racine = tmp;
+		else if ( z.pere.droit == z )
+			z.pere.droit = tmp;
+		else
+			z.pere.gauche = tmp;
+
+		tmp.droit = z;
+		z.pere = tmp;
+	}
+}
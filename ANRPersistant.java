@@ -0,0 +1,382 @@
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Arbre rouge-noir persistant : une fois créé, un ANRPersistant ne change
+ * plus. {@link #ajouter(Object)} et {@link #supprimer(Object)} renvoient une
+ * nouvelle version qui partage avec l'ancienne tous les sous-arbres qui ne
+ * sont pas sur le chemin de la racine à la clé : seuls O(log n) noeuds sont
+ * recopiés. Les itérateurs d'une version ne sont donc jamais invalidés.
+ * </p>
+ *
+ * <p>
+ * Sans pointeur vers le père, les corrections de {@link ANR} ne peuvent pas
+ * remonter l'arbre : elles se font en redescendant, lors de la recopie du
+ * chemin. L'ajout rééquilibre comme Okasaki (un grand-père noir avec deux
+ * rouges consécutifs sous lui devient un rouge avec deux fils noirs), la
+ * suppression suit Kahrs. Comme dans ANR, les doublons sont permis et une clé
+ * égale est ajoutée à droite.
+ * </p>
+ *
+ * <p>
+ * Les méthodes add et remove de Collection ne sont pas disponibles. Pour un
+ * arbre modifiable dont on peut figer l'état, voir {@link ANRAtomique}.
+ * </p>
+ */
+public final class ANRPersistant<E extends Comparable<E>> extends AbstractCollection<E>
+{
+	/**
+	 * Noeud non modifiable. La classe est statique : un noeud est partagé par
+	 * plusieurs versions et ne doit en retenir aucune.
+	 */
+	private static final class Noeud<E>
+	{
+		final E cle;
+		final Noeud<E> gauche;
+		final Noeud<E> droit;
+		final char couleur;
+
+		Noeud(char couleur, Noeud<E> gauche, E cle, Noeud<E> droit)
+		{
+			this.couleur = couleur;
+			this.gauche = gauche;
+			this.cle = cle;
+			this.droit = droit;
+		}
+	}
+
+	// null pour l'arbre vide
+	private final Noeud<E> racine;
+	private final int taille;
+	private final Comparator<? super E> cmp;
+
+	/**
+	 * Itérateur dans l'ordre croissant des clés. La pile contient les noeuds
+	 * dont il reste à parcourir la clé et le sous-arbre droit.
+	 */
+	private class ANRPersistantIterator implements Iterator<E> {
+		private final ArrayDeque<Noeud<E>> pile = new ArrayDeque<>();
+
+		ANRPersistantIterator()
+		{
+			descendre(racine);
+		}
+
+		private void descendre(Noeud<E> x)
+		{
+			for ( ; x != null; x = x.gauche )
+				pile.push(x);
+		}
+
+		public boolean hasNext()
+		{
+			return !pile.isEmpty();
+		}
+
+		public E next()
+		{
+			if ( pile.isEmpty() ) throw new NoSuchElementException();
+			Noeud<E> x = pile.pop();
+			descendre(x.droit);
+			return x.cle;
+		}
+	}
+
+	// Constructeurs
+
+	/**
+	 * Crée un arbre vide. Les éléments sont ordonnés selon l'ordre naturel
+	 */
+	@SuppressWarnings("unchecked")
+	public ANRPersistant()
+	{
+		this(null, 0, (Comparator<E>) Comparator.naturalOrder());
+	}
+
+	/**
+	 * Crée un arbre vide. Les éléments sont comparés selon l'ordre imposé par
+	 * le comparateur
+	 *
+	 * @param cmp
+	 *            le comparateur utilisé pour définir l'ordre des éléments
+	 */
+	public ANRPersistant(Comparator<? super E> cmp)
+	{
+		this(null, 0, cmp);
+	}
+
+	/**
+	 * Crée un arbre qui contient les mêmes éléments que c. L'ordre des
+	 * éléments est l'ordre naturel.
+	 *
+	 * @param c
+	 *            la collection à copier
+	 */
+	@SuppressWarnings("unchecked")
+	public ANRPersistant(Collection<? extends E> c)
+	{
+		cmp = (Comparator<E>) Comparator.naturalOrder();
+		Noeud<E> r = null;
+		for ( E e : c )
+			r = noir(inserer(r, e));
+		racine = r;
+		taille = c.size();
+	}
+
+	private ANRPersistant(Noeud<E> racine, int taille, Comparator<? super E> cmp)
+	{
+		this.racine = racine;
+		this.taille = taille;
+		this.cmp = cmp;
+	}
+
+	@Override
+	public Iterator<E> iterator() {return new ANRPersistantIterator();}
+
+	@Override
+	public int size() {return taille;}
+
+	@Override
+	public boolean isEmpty() {return racine == null;}
+
+	/**
+	 * Renvoie le comparateur de l'arbre
+	 *
+	 * @return le comparateur de l'arbre
+	 */
+	public Comparator<? super E> getCmp() {return cmp;}
+
+	/**
+	 * Renvoie la version vide de même comparateur
+	 *
+	 * @return un arbre vide
+	 */
+	public ANRPersistant<E> vide()
+	{
+		return racine == null ? this : new ANRPersistant<E>(null, 0, cmp);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean contains(Object o)
+	{
+		E e = (E) o;
+		Noeud<E> x = racine;
+		while ( x != null )
+		{
+			int c = cmp.compare(e, x.cle);
+			if ( c == 0 )
+				return true;
+			x = c < 0 ? x.gauche : x.droit;
+		}
+		return false;
+	}
+
+	// Ajout
+
+	/**
+	 * Renvoie une version contenant en plus la clé e. Cette version n'est pas
+	 * modifiée.
+	 *
+	 * @param e
+	 *            la clé à ajouter
+	 * @return la nouvelle version
+	 */
+	public ANRPersistant<E> ajouter(E e)
+	{
+		return new ANRPersistant<E>(noir(inserer(racine, e)), taille + 1, cmp);
+	}
+
+	/**
+	 * Recopie le chemin de x jusqu'à la place de e. Le sous-arbre renvoyé a
+	 * la même hauteur noire que x, mais sa racine peut être rouge avec un fils
+	 * rouge : c'est le grand-père qui corrige, dans {@link #equilibrer}.
+	 */
+	private Noeud<E> inserer(Noeud<E> x, E e)
+	{
+		if ( x == null )
+			return new Noeud<>('R', null, e, null);
+
+		if ( cmp.compare(e, x.cle) < 0 )
+		{
+			if ( x.couleur == 'N' )
+				return equilibrer(inserer(x.gauche, e), x.cle, x.droit);
+			return new Noeud<>('R', inserer(x.gauche, e), x.cle, x.droit);
+		}
+		if ( x.couleur == 'N' )
+			return equilibrer(x.gauche, x.cle, inserer(x.droit, e));
+		return new Noeud<>('R', x.gauche, x.cle, inserer(x.droit, e));
+	}
+
+	/**
+	 * Construit un noeud noir de fils a et b, sauf si un fils rouge a
+	 * lui-même un fils rouge : les trois noeuds sont alors réorganisés en un
+	 * noeud rouge de deux fils noirs. Si les deux fils sont rouges, ils sont
+	 * noircis sous un noeud rouge (le cas de l'oncle rouge de ANR).
+	 */
+	private static <E> Noeud<E> equilibrer(Noeud<E> a, E x, Noeud<E> b)
+	{
+		if ( rouge(a) && rouge(b) )
+			return new Noeud<>('R', noir(a), x, noir(b));
+		if ( rouge(a) )
+		{
+			if ( rouge(a.gauche) )
+				return new Noeud<>('R', noir(a.gauche), a.cle, new Noeud<>('N', a.droit, x, b));
+			if ( rouge(a.droit) )
+				return new Noeud<>('R', new Noeud<>('N', a.gauche, a.cle, a.droit.gauche), a.droit.cle,
+						new Noeud<>('N', a.droit.droit, x, b));
+		}
+		if ( rouge(b) )
+		{
+			if ( rouge(b.droit) )
+				return new Noeud<>('R', new Noeud<>('N', a, x, b.gauche), b.cle, noir(b.droit));
+			if ( rouge(b.gauche) )
+				return new Noeud<>('R', new Noeud<>('N', a, x, b.gauche.gauche), b.gauche.cle,
+						new Noeud<>('N', b.gauche.droit, b.cle, b.droit));
+		}
+		return new Noeud<>('N', a, x, b);
+	}
+
+	// Suppression
+
+	/**
+	 * Renvoie une version privée d'une occurrence de la clé o, ou cette
+	 * version si o n'y est pas. Cette version n'est pas modifiée.
+	 *
+	 * @param o
+	 *            la clé à supprimer
+	 * @return la nouvelle version
+	 */
+	@SuppressWarnings("unchecked")
+	public ANRPersistant<E> supprimer(Object o)
+	{
+		// enlever suppose la clé présente : sinon la hauteur noire ne
+		// diminue pas alors que les corrections le supposent
+		if ( !contains(o) )
+			return this;
+		return new ANRPersistant<E>(noir(enlever(racine, (E) o)), taille - 1, cmp);
+	}
+
+	/**
+	 * Recopie le chemin de x jusqu'à un noeud de clé e, qui doit exister, et
+	 * le retire. Si x est noir, le sous-arbre renvoyé a une hauteur noire de
+	 * moins, ce que corrigent {@link #equilibrerGauche} et
+	 * {@link #equilibrerDroite} ; si x est rouge, elle ne change pas.
+	 */
+	private Noeud<E> enlever(Noeud<E> x, E e)
+	{
+		int c = cmp.compare(e, x.cle);
+		if ( c < 0 )
+		{
+			if ( noirNonVide(x.gauche) )
+				return equilibrerGauche(enlever(x.gauche, e), x.cle, x.droit);
+			return new Noeud<>('R', enlever(x.gauche, e), x.cle, x.droit);
+		}
+		if ( c > 0 )
+		{
+			if ( noirNonVide(x.droit) )
+				return equilibrerDroite(x.gauche, x.cle, enlever(x.droit, e));
+			return new Noeud<>('R', x.gauche, x.cle, enlever(x.droit, e));
+		}
+		return fusionner(x.gauche, x.droit);
+	}
+
+	/**
+	 * Construit un noeud de fils g et d quand g a une hauteur noire de moins
+	 * que d (cas 1 à 4 de la suppression dans ANR)
+	 */
+	private static <E> Noeud<E> equilibrerGauche(Noeud<E> g, E x, Noeud<E> d)
+	{
+		if ( rouge(g) )
+			return new Noeud<>('R', noir(g), x, d);
+		if ( noirNonVide(d) )
+			return equilibrer(g, x, rougir(d));
+		if ( rouge(d) && noirNonVide(d.gauche) )
+			return new Noeud<>('R', new Noeud<>('N', g, x, d.gauche.gauche), d.gauche.cle,
+					equilibrer(d.gauche.droit, d.cle, rougir(d.droit)));
+		throw new IllegalStateException("arbre rouge-noir invalide");
+	}
+
+	/**
+	 * Symétrique de {@link #equilibrerGauche} : d a une hauteur noire de moins
+	 * que g
+	 */
+	private static <E> Noeud<E> equilibrerDroite(Noeud<E> g, E x, Noeud<E> d)
+	{
+		if ( rouge(d) )
+			return new Noeud<>('R', g, x, noir(d));
+		if ( noirNonVide(g) )
+			return equilibrer(rougir(g), x, d);
+		if ( rouge(g) && noirNonVide(g.droit) )
+			return new Noeud<>('R', equilibrer(rougir(g.gauche), g.cle, g.droit.gauche), g.droit.cle,
+					new Noeud<>('N', g.droit.droit, x, d));
+		throw new IllegalStateException("arbre rouge-noir invalide");
+	}
+
+	/**
+	 * Fusionne les fils g et d d'un noeud supprimé, de même hauteur noire, en
+	 * un seul sous-arbre (toutes les clés de g précèdent celles de d)
+	 */
+	private static <E> Noeud<E> fusionner(Noeud<E> g, Noeud<E> d)
+	{
+		if ( g == null )
+			return d;
+		if ( d == null )
+			return g;
+
+		if ( rouge(g) && rouge(d) )
+		{
+			Noeud<E> m = fusionner(g.droit, d.gauche);
+			if ( rouge(m) )
+				return new Noeud<>('R', new Noeud<>('R', g.gauche, g.cle, m.gauche), m.cle,
+						new Noeud<>('R', m.droit, d.cle, d.droit));
+			return new Noeud<>('R', g.gauche, g.cle, new Noeud<>('R', m, d.cle, d.droit));
+		}
+		if ( !rouge(g) && !rouge(d) )
+		{
+			Noeud<E> m = fusionner(g.droit, d.gauche);
+			if ( rouge(m) )
+				return new Noeud<>('R', new Noeud<>('N', g.gauche, g.cle, m.gauche), m.cle,
+						new Noeud<>('N', m.droit, d.cle, d.droit));
+			return equilibrerGauche(g.gauche, g.cle, new Noeud<>('N', m, d.cle, d.droit));
+		}
+		if ( rouge(d) )
+			return new Noeud<>('R', fusionner(g, d.gauche), d.cle, d.droit);
+		return new Noeud<>('R', g.gauche, g.cle, fusionner(g.droit, d));
+	}
+
+	// Couleurs
+
+	private static boolean rouge(Noeud<?> x)
+	{
+		return x != null && x.couleur == 'R';
+	}
+
+	private static boolean noirNonVide(Noeud<?> x)
+	{
+		return x != null && x.couleur == 'N';
+	}
+
+	/**
+	 * Renvoie x avec une racine noire, en ne recopiant que la racine
+	 */
+	private static <E> Noeud<E> noir(Noeud<E> x)
+	{
+		return x == null || x.couleur == 'N' ? x : new Noeud<>('N', x.gauche, x.cle, x.droit);
+	}
+
+	/**
+	 * Renvoie x, noir et non vide, avec une racine rouge : sa hauteur noire
+	 * diminue de un
+	 */
+	private static <E> Noeud<E> rougir(Noeud<E> x)
+	{
+		if ( !noirNonVide(x) ) throw new IllegalStateException("arbre rouge-noir invalide");
+		return new Noeud<>('R', x.gauche, x.cle, x.droit);
+	}
+}
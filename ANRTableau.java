@@ -0,0 +1,516 @@
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Arbre rouge-noir dont les noeuds sont rangés dans des tableaux parallèles
+ * plutôt que dans un objet Noeud chacun. Un noeud est un indice : ses fils et
+ * son père sont dans les tableaux gauche, droit et pere, sa clé dans cles et
+ * sa couleur dans le BitSet rouges (bit à 1 pour un noeud rouge).
+ * </p>
+ *
+ * <p>
+ * L'indice 0 joue le rôle de la sentinelle de {@link ANR} : il est toujours
+ * noir et remplace toutes les feuilles. Les emplacements libérés par les
+ * suppressions sont chaînés (par le tableau gauche) et réutilisés par les
+ * ajouts suivants.
+ * </p>
+ *
+ * @param <E>
+ *            le type des clés stockées dans l'arbre
+ */
+public class ANRTableau<E extends Comparable<E>> extends AbstractCollection<E>
+{
+	private static final int SENTINELLE = 0;
+	private static final int CAPACITE_INITIALE = 16;
+
+	private int[] gauche;
+	private int[] droit;
+	private int[] pere;
+	private Object[] cles;
+	private final BitSet rouges = new BitSet();
+
+	private int racine;
+	private int taille;
+	private int prochain;   // premier indice jamais utilisé
+	private int libres;     // tête de la liste des indices libérés
+	private Comparator<? super E> cmp;
+
+	/**
+	 * Les itérateurs parcourent les éléments dans l'ordre en utilisant
+	 * {@link #minimum(int)} et {@link #suivant(int)}
+	 */
+	private class ANRTableauIterator implements Iterator<E> {
+		private int suiv, prec;
+
+		public ANRTableauIterator()
+		{
+			prec = SENTINELLE;
+			suiv = racine == SENTINELLE ? SENTINELLE : minimum(racine);
+		}
+
+		public boolean hasNext()
+		{
+			return suiv != SENTINELLE;
+		}
+
+		public E next()
+		{
+			if ( suiv == SENTINELLE ) throw new NoSuchElementException();
+			prec = suiv;
+			suiv = suivant(suiv);
+			return cle(prec);
+		}
+
+		public void remove()
+		{
+			if ( prec == SENTINELLE )  throw new IllegalStateException();
+			suiv = supprimer(prec);
+			prec = SENTINELLE;
+		}
+	}
+
+	// Constructeurs
+
+	/**
+	 * Crée un arbre vide. Les éléments sont ordonnés selon l'ordre naturel
+	 */
+	@SuppressWarnings("unchecked")
+	public ANRTableau()
+	{
+		this((Comparator<E>) Comparator.naturalOrder());
+	}
+
+	/**
+	 * Crée un arbre vide. Les éléments sont comparés selon l'ordre imposé par
+	 * le comparateur
+	 *
+	 * @param cmp
+	 *            le comparateur utilisé pour définir l'ordre des éléments
+	 */
+	public ANRTableau(Comparator<? super E> cmp)
+	{
+		this.cmp = cmp;
+		allouer(CAPACITE_INITIALE);
+		clear();
+	}
+
+	/**
+	 * Constructeur par recopie. Crée un arbre qui contient les mêmes éléments
+	 * que c. L'ordre des éléments est l'ordre naturel.
+	 *
+	 * @param c
+	 *            la collection à copier
+	 */
+	public ANRTableau(Collection<? extends E> c)
+	{
+		this();
+		addAll(c);
+	}
+
+	private void allouer(int capacite)
+	{
+		gauche = new int[capacite];
+		droit = new int[capacite];
+		pere = new int[capacite];
+		cles = new Object[capacite];
+	}
+
+	/**
+	 * Renvoie un indice libre, en réutilisant d'abord ceux libérés par les
+	 * suppressions, puis en agrandissant les tableaux si besoin
+	 *
+	 * @return l'indice du nouveau noeud
+	 */
+	private int nouveauNoeud(E cle)
+	{
+		int z;
+		if (libres != SENTINELLE)
+		{
+			z = libres;
+			libres = gauche[z];
+		} else
+		{
+			if (prochain == cles.length)
+			{
+				int capacite = cles.length * 2;
+				gauche = Arrays.copyOf(gauche, capacite);
+				droit = Arrays.copyOf(droit, capacite);
+				pere = Arrays.copyOf(pere, capacite);
+				cles = Arrays.copyOf(cles, capacite);
+			}
+			z = prochain++;
+		}
+		cles[z] = cle;
+		gauche[z] = droit[z] = pere[z] = SENTINELLE;
+		return z;
+	}
+
+	private void liberer(int z)
+	{
+		cles[z] = null;
+		rouges.clear(z);
+		gauche[z] = libres;
+		libres = z;
+	}
+
+	@SuppressWarnings("unchecked")
+	private E cle(int x)
+	{
+		return (E) cles[x];
+	}
+
+	private boolean rouge(int x)
+	{
+		return rouges.get(x);
+	}
+
+	private void colorer(int x, boolean rouge)
+	{
+		// la sentinelle reste noire
+		if (x != SENTINELLE)
+			rouges.set(x, rouge);
+	}
+
+	@Override
+	public Iterator<E> iterator() {return new ANRTableauIterator();}
+
+	@Override
+	public int size() {return taille;}
+
+	/**
+	 * Renvoie le noeud contenant la clé minimale du sous-arbre enraciné en x
+	 */
+	private int minimum(int x)
+	{
+		while (gauche[x] != SENTINELLE) x = gauche[x];
+		return x;
+	}
+
+	/**
+	 * Renvoie le successeur de x, la sentinelle si x contient la plus grande
+	 * clé
+	 */
+	private int suivant(int x)
+	{
+		if (droit[x] != SENTINELLE)
+			return minimum(droit[x]);
+
+		int y = pere[x];
+		while (y != SENTINELLE && x == droit[y])
+		{
+			x = y;
+			y = pere[y];
+		}
+		return y;
+	}
+
+	/**
+	 * Recherche une clé.
+	 *
+	 * @param o
+	 *            la clé à chercher
+	 * @return l'indice du noeud qui contient la clé ou la sentinelle si la clé
+	 *         n'est pas trouvée.
+	 */
+	@SuppressWarnings("unchecked")
+	private int rechercher(Object o)
+	{
+		E cle = (E) o;
+		int x = racine;
+
+		while (x != SENTINELLE)
+		{
+			int compare = cmp.compare(cle, cle(x));
+			if (compare == 0)
+				break;
+			x = compare < 0 ? gauche[x] : droit[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Supprime le noeud z.
+	 *
+	 * @param z
+	 *            le noeud à supprimer
+	 * @return le noeud contenant la clé qui suit celle de z dans l'ordre des
+	 *         clés
+	 */
+	private int supprimer(int z)
+	{
+		int y, x;
+		int svt = suivant(z);
+
+		if (gauche[z] == SENTINELLE || droit[z] == SENTINELLE)
+			y = z;
+		else
+			y = svt;
+		// y est le nœud à détacher
+
+		if (gauche[y] != SENTINELLE)
+			x = gauche[y];
+		else
+			x = droit[y];
+		// x est le fils unique de y ou la sentinelle si y n'a pas de fils
+
+		pere[x] = pere[y];
+
+		if (pere[y] == SENTINELLE) // suppression de la racine
+			racine = x;
+		else if (y == gauche[pere[y]])
+			gauche[pere[y]] = x;
+		else
+			droit[pere[y]] = x;
+
+		if (y != z)
+		{
+			cles[z] = cles[y];
+			svt = z;
+		}
+		boolean noir = !rouge(y);
+		liberer(y);
+		if (noir)
+			supprimerCorrection(x);
+
+		taille--;
+		return svt;
+	}
+
+	private void supprimerCorrection(int x)
+	{
+		int w;
+		while (x != racine && !rouge(x))
+		{
+			if (x == gauche[pere[x]])
+			{
+				w = droit[pere[x]]; // le frère de x
+				if (rouge(w))
+				{
+					// cas 1
+					colorer(w, false);
+					colorer(pere[x], true);
+					rotationGauche(pere[x]);
+					w = droit[pere[x]];
+				}
+				if (!rouge(gauche[w]) && !rouge(droit[w]))
+				{
+					// cas 2
+					colorer(w, true);
+					x = pere[x];
+				} else
+				{
+					if (!rouge(droit[w]))
+					{
+						// cas 3
+						colorer(gauche[w], false);
+						colorer(w, true);
+						rotationDroite(w);
+						w = droit[pere[x]];
+					}
+					// cas 4
+					colorer(w, rouge(pere[x]));
+					colorer(pere[x], false);
+					colorer(droit[w], false);
+					rotationGauche(pere[x]);
+					x = racine;
+				}
+			} else
+			{
+				w = gauche[pere[x]]; // le frère de x
+				if (rouge(w))
+				{
+					// cas 1
+					colorer(w, false);
+					colorer(pere[x], true);
+					rotationDroite(pere[x]);
+					w = gauche[pere[x]];
+				}
+				if (!rouge(droit[w]) && !rouge(gauche[w]))
+				{
+					// cas 2
+					colorer(w, true);
+					x = pere[x];
+				} else
+				{
+					if (!rouge(gauche[w]))
+					{
+						// cas 3
+						colorer(droit[w], false);
+						colorer(w, true);
+						rotationGauche(w);
+						w = gauche[pere[x]];
+					}
+					// cas 4
+					colorer(w, rouge(pere[x]));
+					colorer(pere[x], false);
+					colorer(gauche[w], false);
+					rotationDroite(pere[x]);
+					x = racine;
+				}
+			}
+		}
+		colorer(x, false);
+	}
+
+	/**
+	 * Ajoute un noeud dans l'arbre
+	 *
+	 * @param z l'indice du noeud à rajouter
+	 */
+	private void ajouter(int z)
+	{
+		int y = SENTINELLE;
+		int x = racine;
+		E cle = cle(z);
+
+		while (x != SENTINELLE)
+		{
+			y = x;
+			x = cmp.compare(cle, cle(x)) < 0 ? gauche[x] : droit[x];
+		}
+		pere[z] = y;
+		if (y == SENTINELLE)
+			racine = z;
+		else if (cmp.compare(cle, cle(y)) < 0)
+			gauche[y] = z;
+		else
+			droit[y] = z;
+
+		colorer(z, true);
+		ajouterCorrection(z);
+		taille++;
+	}
+
+	private void ajouterCorrection(int n)
+	{
+		// re organisation de l'arbre, en remontant vers la racine
+		while (n != racine && rouge(pere[n]))
+		{
+			int p = pere[n], gp = pere[p];
+			if (p == gauche[gp])
+			{
+				int y = droit[gp];
+				if (rouge(y))
+				{
+					colorer(p, false);
+					colorer(y, false);
+					colorer(gp, true);
+					n = gp;
+				} else
+				{
+					if (n == droit[p])
+					{
+						n = p;
+						rotationGauche(n);
+					}
+					colorer(pere[n], false);
+					colorer(pere[pere[n]], true);
+					rotationDroite(pere[pere[n]]);
+				}
+			} else
+			{
+				int y = gauche[gp];
+				if (rouge(y))
+				{
+					colorer(p, false);
+					colorer(y, false);
+					colorer(gp, true);
+					n = gp;
+				} else
+				{
+					if (n == gauche[p])
+					{
+						n = p;
+						rotationDroite(n);
+					}
+					colorer(pere[n], false);
+					colorer(pere[pere[n]], true);
+					rotationGauche(pere[pere[n]]);
+				}
+			}
+		}
+		colorer(racine, false);
+	}
+
+	private void rotationGauche(int z)
+	{
+		int tmp = droit[z];
+		droit[z] = gauche[tmp];
+
+		if (gauche[tmp] != SENTINELLE)
+			pere[gauche[tmp]] = z;
+
+		pere[tmp] = pere[z];
+		if (pere[z] == SENTINELLE)
+			racine = tmp;
+		else if (gauche[pere[z]] == z)
+			gauche[pere[z]] = tmp;
+		else
+			droit[pere[z]] = tmp;
+
+		gauche[tmp] = z;
+		pere[z] = tmp;
+	}
+
+	private void rotationDroite(int z)
+	{
+		int tmp = gauche[z];
+		gauche[z] = droit[tmp];
+
+		if (droit[tmp] != SENTINELLE)
+			pere[droit[tmp]] = z;
+
+		pere[tmp] = pere[z];
+		if (pere[z] == SENTINELLE)
+			racine = tmp;
+		else if (droit[pere[z]] == z)
+			droit[pere[z]] = tmp;
+		else
+			gauche[pere[z]] = tmp;
+
+		droit[tmp] = z;
+		pere[z] = tmp;
+	}
+
+	public boolean add(E e)
+	{
+		ajouter(nouveauNoeud(e));
+		return true;
+	}
+
+	public void clear()
+	{
+		Arrays.fill(cles, null);
+		rouges.clear();
+		racine = SENTINELLE;
+		taille = 0;
+		prochain = SENTINELLE + 1;
+		libres = SENTINELLE;
+	}
+
+	public boolean contains(Object o)
+	{
+		return rechercher(o) != SENTINELLE;
+	}
+
+	public boolean isEmpty()
+	{
+		return racine == SENTINELLE;
+	}
+
+	public boolean remove(Object o)
+	{
+		int n = rechercher(o);
+		if (n == SENTINELLE)
+			return false;
+
+		supprimer(n);
+		return true;
+	}
+}
@@ -0,0 +1,521 @@
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Arbre B+ : les clés sont rangées dans des tableaux contigus de
+ * {@link #CAPACITE} éléments, dans les feuilles, chaînées dans l'ordre des
+ * clés. Les noeuds internes ne contiennent que des séparateurs. Une recherche
+ * fait une recherche dichotomique par niveau, sur un seul tableau : pour
+ * 10 millions de clés il y a 4 ou 5 niveaux, au lieu de 25 à 45 noeuds
+ * chaînés dans un ANR.
+ * </p>
+ *
+ * <p>
+ * Mêmes constructeurs et même sémantique que {@link ANR} : les doublons sont
+ * permis, une clé égale est ajoutée après les autres, remove supprime une
+ * occurrence.
+ * </p>
+ */
+public class ArbreB<E extends Comparable<E>> extends AbstractCollection<E>
+{
+	// nombre maximal de clés d'une feuille et de fils d'un noeud interne
+	private static final int CAPACITE = 64;
+	// nombre minimal, sauf pour la racine
+	private static final int MINIMUM = CAPACITE / 2;
+
+	private Noeud racine;
+	// nombre de niveaux de noeuds internes
+	private int hauteur;
+	private int taille;
+	private Comparator<? super E> cmp;
+
+	private abstract static class Noeud
+	{
+		Interne pere;
+		// feuille : nombre de clés ; noeud interne : nombre de fils
+		int n;
+		// clés de la feuille ou séparateurs du noeud interne : toutes les
+		// clés du fils i sont inférieures ou égales à cles[i], elle-même
+		// inférieure ou égale à toutes les clés du fils i + 1
+		final Object[] cles;
+
+		Noeud(int capacite)
+		{
+			cles = new Object[capacite];
+		}
+	}
+
+	private static final class Feuille extends Noeud
+	{
+		Feuille suivante;
+
+		Feuille()
+		{
+			// une case de plus pour la clé qui déclenche le découpage
+			super(CAPACITE + 1);
+		}
+	}
+
+	private static final class Interne extends Noeud
+	{
+		final Noeud[] fils = new Noeud[CAPACITE + 1];
+
+		Interne()
+		{
+			super(CAPACITE);
+		}
+
+		int indice(Noeud x)
+		{
+			int j = 0;
+			while (fils[j] != x) j++;
+			return j;
+		}
+	}
+
+	/**
+	 * Parcourt les feuilles chaînées. Après une suppression, les clés ont pu
+	 * changer de feuille : l'itérateur se replace en cherchant la clé
+	 * supprimée puis en sautant autant de doublons qu'il y en avait avant elle.
+	 */
+	private class ArbreBIterator implements Iterator<E> {
+		private Feuille f, fPrec;
+		private int i, iPrec = -1;
+
+		ArbreBIterator()
+		{
+			Noeud x = racine;
+			for ( int h = hauteur; h > 0; h-- )
+				x = ((Interne) x).fils[0];
+			f = (Feuille) x;
+			normaliser();
+		}
+
+		// passe à la feuille suivante si i est au bout de la feuille
+		private void normaliser()
+		{
+			while ( f != null && i == f.n )
+			{
+				f = f.suivante;
+				i = 0;
+			}
+		}
+
+		public boolean hasNext()
+		{
+			return f != null;
+		}
+
+		@SuppressWarnings("unchecked")
+		public E next()
+		{
+			if ( f == null ) throw new NoSuchElementException();
+			fPrec = f;
+			iPrec = i++;
+			normaliser();
+			return (E) fPrec.cles[iPrec];
+		}
+
+		@SuppressWarnings("unchecked")
+		public void remove()
+		{
+			if ( iPrec < 0 ) throw new IllegalStateException();
+			E cle = (E) fPrec.cles[iPrec];
+
+			// rang de la clé parmi ses doublons
+			Position p = placer(cle);
+			int r = 0;
+			Feuille a = p.feuille;
+			for ( int j = p.indice; a != fPrec || j != iPrec; r++ )
+			{
+				if ( ++j == a.n )
+				{
+					a = a.suivante;
+					j = 0;
+				}
+			}
+
+			supprimer(fPrec, iPrec);
+			iPrec = -1;
+
+			p = placer(cle);
+			f = p == null ? null : p.feuille;
+			i = p == null ? 0 : p.indice;
+			for ( ; r > 0 && f != null; r-- )
+			{
+				i++;
+				normaliser();
+			}
+		}
+	}
+
+	// Constructeurs
+
+	/**
+	 * Crée un arbre vide. Les éléments sont ordonnés selon l'ordre naturel
+	 */
+	@SuppressWarnings("unchecked")
+	public ArbreB()
+	{
+		this((Comparator<E>) Comparator.naturalOrder());
+	}
+
+	/**
+	 * Crée un arbre vide. Les éléments sont comparés selon l'ordre imposé par
+	 * le comparateur
+	 *
+	 * @param cmp
+	 *            le comparateur utilisé pour définir l'ordre des éléments
+	 */
+	public ArbreB(Comparator<? super E> cmp)
+	{
+		this.cmp = cmp;
+		racine = new Feuille();
+	}
+
+	/**
+	 * Constructeur par recopie. Crée un arbre qui contient les mêmes éléments
+	 * que c. L'ordre des éléments est l'ordre naturel.
+	 *
+	 * @param c
+	 *            la collection à copier
+	 */
+	public ArbreB(Collection<? extends E> c)
+	{
+		this();
+		addAll(c);
+	}
+
+	@Override
+	public Iterator<E> iterator() {return new ArbreBIterator();}
+
+	@Override
+	public int size() {return taille;}
+
+	@Override
+	public boolean isEmpty() {return taille == 0;}
+
+	// Recherche
+
+	/**
+	 * Recherche dichotomique dans les n premières clés d'un noeud
+	 *
+	 * @return le premier indice dont la clé est supérieure ou égale à e
+	 *         (strictement supérieure si apres), n s'il n'y en a pas
+	 */
+	@SuppressWarnings("unchecked")
+	private int chercher(Object[] cles, int n, E e, boolean apres)
+	{
+		int bas = 0, haut = n;
+		while ( bas < haut )
+		{
+			int m = (bas + haut) >>> 1;
+			int c = cmp.compare((E) cles[m], e);
+			if ( c < 0 || (apres && c == 0) )
+				bas = m + 1;
+			else
+				haut = m;
+		}
+		return bas;
+	}
+
+	/**
+	 * Descend jusqu'à la feuille qui contient la première position de clé
+	 * supérieure ou égale à e (strictement supérieure si apres), ou qui la
+	 * précède immédiatement
+	 */
+	private Feuille descendre(E e, boolean apres)
+	{
+		Noeud x = racine;
+		for ( int h = hauteur; h > 0; h-- )
+			x = ((Interne) x).fils[chercher(x.cles, x.n - 1, e, apres)];
+		return (Feuille) x;
+	}
+
+	/**
+	 * Position d'une clé dans une feuille
+	 */
+	private static final class Position
+	{
+		final Feuille feuille;
+		final int indice;
+
+		Position(Feuille feuille, int indice)
+		{
+			this.feuille = feuille;
+			this.indice = indice;
+		}
+	}
+
+	/**
+	 * Renvoie la position de la première clé supérieure ou égale à e, null
+	 * s'il n'y en a pas. Rien n'est écrit dans l'arbre : des lectures
+	 * concurrentes sont possibles, comme pour ANR.
+	 */
+	private Position placer(E e)
+	{
+		Feuille f = descendre(e, false);
+		int i = chercher(f.cles, f.n, e, false);
+		if ( i == f.n )
+		{
+			// les feuilles autres que la racine ne sont jamais vides
+			f = f.suivante;
+			i = 0;
+		}
+		return f == null ? null : new Position(f, i);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean contains(Object o)
+	{
+		E e = (E) o;
+		Position p = placer(e);
+		return p != null && cmp.compare(e, (E) p.feuille.cles[p.indice]) == 0;
+	}
+
+	// Ajout
+
+	@Override
+	public boolean add(E e)
+	{
+		Feuille f = descendre(e, true);
+		int i = chercher(f.cles, f.n, e, true);
+		System.arraycopy(f.cles, i, f.cles, i + 1, f.n - i);
+		f.cles[i] = e;
+		f.n++;
+		taille++;
+
+		if ( f.n > CAPACITE )
+			decouper(f);
+		return true;
+	}
+
+	/**
+	 * Coupe une feuille pleine en deux et ajoute la seconde moitié au père
+	 */
+	private void decouper(Feuille f)
+	{
+		Feuille d = new Feuille();
+		int m = f.n / 2;
+		d.n = f.n - m;
+		System.arraycopy(f.cles, m, d.cles, 0, d.n);
+		vider(f.cles, m, f.n);
+		f.n = m;
+
+		d.suivante = f.suivante;
+		f.suivante = d;
+		insererDansPere(f, d.cles[0], d);
+	}
+
+	/**
+	 * Coupe un noeud interne plein en deux : le séparateur du milieu monte
+	 * dans le père
+	 */
+	private void decouper(Interne p)
+	{
+		Interne d = new Interne();
+		int m = p.n / 2;
+		d.n = p.n - m;
+		System.arraycopy(p.fils, m, d.fils, 0, d.n);
+		System.arraycopy(p.cles, m, d.cles, 0, d.n - 1);
+		Object sep = p.cles[m - 1];
+		for ( int j = 0; j < d.n; j++ )
+			d.fils[j].pere = d;
+		vider(p.fils, m, p.n);
+		vider(p.cles, m - 1, p.n - 1);
+		p.n = m;
+
+		insererDansPere(p, sep, d);
+	}
+
+	/**
+	 * Ajoute d, de séparateur sep, juste après son frère g dans le père de g
+	 */
+	private void insererDansPere(Noeud g, Object sep, Noeud d)
+	{
+		Interne p = g.pere;
+		if ( p == null )
+		{
+			p = new Interne();
+			p.fils[0] = g;
+			p.fils[1] = d;
+			p.cles[0] = sep;
+			p.n = 2;
+			g.pere = d.pere = p;
+			racine = p;
+			hauteur++;
+			return;
+		}
+
+		int j = p.indice(g);
+		System.arraycopy(p.fils, j + 1, p.fils, j + 2, p.n - j - 1);
+		System.arraycopy(p.cles, j, p.cles, j + 1, p.n - 1 - j);
+		p.fils[j + 1] = d;
+		p.cles[j] = sep;
+		p.n++;
+		d.pere = p;
+
+		if ( p.n > CAPACITE )
+			decouper(p);
+	}
+
+	// Suppression
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean remove(Object o)
+	{
+		E e = (E) o;
+		Position p = placer(e);
+		if ( p == null || cmp.compare(e, (E) p.feuille.cles[p.indice]) != 0 )
+			return false;
+
+		supprimer(p.feuille, p.indice);
+		return true;
+	}
+
+	/**
+	 * Supprime la clé d'indice i de la feuille f
+	 */
+	private void supprimer(Feuille f, int i)
+	{
+		System.arraycopy(f.cles, i + 1, f.cles, i, f.n - i - 1);
+		f.cles[--f.n] = null;
+		taille--;
+
+		if ( f != racine && f.n < MINIMUM )
+			reequilibrer(f);
+	}
+
+	/**
+	 * Corrige un noeud x qui a moins de MINIMUM clés ou fils : il en emprunte
+	 * un à un frère qui en a assez, sinon il est fusionné avec un frère et le
+	 * père perd un fils
+	 */
+	private void reequilibrer(Noeud x)
+	{
+		Interne p = x.pere;
+		int j = p.indice(x);
+		Noeud g = j > 0 ? p.fils[j - 1] : null;
+		Noeud d = j + 1 < p.n ? p.fils[j + 1] : null;
+
+		if ( g != null && g.n > MINIMUM )
+			emprunterAGauche(p, j);
+		else if ( d != null && d.n > MINIMUM )
+			emprunterADroite(p, j);
+		else if ( g != null )
+			fusionner(p, j - 1);
+		else
+			fusionner(p, j);
+	}
+
+	private void emprunterAGauche(Interne p, int j)
+	{
+		Noeud x = p.fils[j], g = p.fils[j - 1];
+		if ( x instanceof Feuille )
+		{
+			System.arraycopy(x.cles, 0, x.cles, 1, x.n);
+			x.cles[0] = g.cles[g.n - 1];
+			g.cles[--g.n] = null;
+			x.n++;
+			p.cles[j - 1] = x.cles[0];
+		} else
+		{
+			Interne xi = (Interne) x, gi = (Interne) g;
+			System.arraycopy(xi.fils, 0, xi.fils, 1, xi.n);
+			System.arraycopy(xi.cles, 0, xi.cles, 1, xi.n - 1);
+			xi.fils[0] = gi.fils[gi.n - 1];
+			xi.fils[0].pere = xi;
+			xi.cles[0] = p.cles[j - 1];
+			p.cles[j - 1] = gi.cles[gi.n - 2];
+			gi.fils[gi.n - 1] = null;
+			gi.cles[gi.n - 2] = null;
+			gi.n--;
+			xi.n++;
+		}
+	}
+
+	private void emprunterADroite(Interne p, int j)
+	{
+		Noeud x = p.fils[j], d = p.fils[j + 1];
+		if ( x instanceof Feuille )
+		{
+			x.cles[x.n++] = d.cles[0];
+			System.arraycopy(d.cles, 1, d.cles, 0, d.n - 1);
+			d.cles[--d.n] = null;
+			p.cles[j] = d.cles[0];
+		} else
+		{
+			Interne xi = (Interne) x, di = (Interne) d;
+			xi.fils[xi.n] = di.fils[0];
+			xi.fils[xi.n].pere = xi;
+			xi.cles[xi.n - 1] = p.cles[j];
+			xi.n++;
+			p.cles[j] = di.cles[0];
+			System.arraycopy(di.fils, 1, di.fils, 0, di.n - 1);
+			System.arraycopy(di.cles, 1, di.cles, 0, di.n - 2);
+			di.fils[di.n - 1] = null;
+			di.cles[di.n - 2] = null;
+			di.n--;
+		}
+	}
+
+	/**
+	 * Fusionne le fils s + 1 de p dans le fils s, puis corrige p s'il a
+	 * maintenant trop peu de fils
+	 */
+	private void fusionner(Interne p, int s)
+	{
+		Noeud a = p.fils[s], b = p.fils[s + 1];
+		if ( a instanceof Feuille )
+		{
+			System.arraycopy(b.cles, 0, a.cles, a.n, b.n);
+			((Feuille) a).suivante = ((Feuille) b).suivante;
+		} else
+		{
+			Interne ai = (Interne) a, bi = (Interne) b;
+			ai.cles[ai.n - 1] = p.cles[s];
+			System.arraycopy(bi.cles, 0, ai.cles, ai.n, bi.n - 1);
+			System.arraycopy(bi.fils, 0, ai.fils, ai.n, bi.n);
+			for ( int j = 0; j < bi.n; j++ )
+				bi.fils[j].pere = ai;
+		}
+		a.n += b.n;
+
+		System.arraycopy(p.cles, s + 1, p.cles, s, p.n - s - 2);
+		System.arraycopy(p.fils, s + 2, p.fils, s + 1, p.n - s - 2);
+		p.cles[p.n - 2] = null;
+		p.fils[p.n - 1] = null;
+		p.n--;
+
+		if ( p == racine )
+		{
+			if ( p.n == 1 )
+			{
+				racine = a;
+				a.pere = null;
+				hauteur--;
+			}
+		} else if ( p.n < MINIMUM )
+			reequilibrer(p);
+	}
+
+	private static void vider(Object[] t, int debut, int fin)
+	{
+		for ( int j = debut; j < fin; j++ )
+			t[j] = null;
+	}
+
+	@Override
+	public void clear()
+	{
+		racine = new Feuille();
+		hauteur = 0;
+		taille = 0;
+	}
+}
@@ -0,0 +1,95 @@
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ * Codage binaire des clés pour les instantanés d'un arbre (cf
+ * {@link ANR#sauvegarder} et {@link ANR#charger}).
+ * </p>
+ *
+ * <p>
+ * Les codecs lisent et écrivent directement dans le tampon, sans vérifier la
+ * place restante : si elle ne suffit pas, {@link BufferOverflowException} ou
+ * {@link BufferUnderflowException} est levée, la position du tampon est
+ * remise au début de la clé par l'appelant, qui vide ou remplit le tampon et
+ * recommence.
+ * </p>
+ *
+ * @param <E>
+ *            le type des clés
+ */
+public interface CodecCle<E>
+{
+	/**
+	 * Écrit e à la position du tampon
+	 *
+	 * @throws BufferOverflowException
+	 *             s'il ne reste pas assez de place
+	 */
+	void ecrire(E e, ByteBuffer tampon);
+
+	/**
+	 * Lit une clé à la position du tampon
+	 *
+	 * @throws BufferUnderflowException
+	 *             si la clé n'est pas entièrement dans le tampon
+	 */
+	E lire(ByteBuffer tampon);
+
+	/**
+	 * Les Integer, sur 4 octets
+	 */
+	CodecCle<Integer> ENTIER = new CodecCle<Integer>() {
+		public void ecrire(Integer e, ByteBuffer tampon) {tampon.putInt(e);}
+
+		public Integer lire(ByteBuffer tampon) {return tampon.getInt();}
+	};
+
+	/**
+	 * Les Long, sur 8 octets
+	 */
+	CodecCle<Long> LONG = new CodecCle<Long>() {
+		public void ecrire(Long e, ByteBuffer tampon) {tampon.putLong(e);}
+
+		public Long lire(ByteBuffer tampon) {return tampon.getLong();}
+	};
+
+	/**
+	 * Les String, en UTF-8 précédé de la longueur en octets, codée sur 1 à 5
+	 * octets par groupes de 7 bits (le bit de poids fort indique qu'un octet
+	 * suit)
+	 */
+	CodecCle<String> CHAINE = new CodecCle<String>() {
+		public void ecrire(String e, ByteBuffer tampon)
+		{
+			byte[] octets = e.getBytes(StandardCharsets.UTF_8);
+			int n = octets.length;
+			while ( (n & ~0x7F) != 0 )
+			{
+				tampon.put((byte) (n | 0x80));
+				n >>>= 7;
+			}
+			tampon.put((byte) n);
+			tampon.put(octets);
+		}
+
+		public String lire(ByteBuffer tampon)
+		{
+			int n = 0;
+			for (int decalage = 0;; decalage += 7)
+			{
+				byte b = tampon.get();
+				n |= (b & 0x7F) << decalage;
+				if ( b >= 0 )
+					break;
+			}
+			if ( tampon.remaining() < n )
+				throw new BufferUnderflowException();
+			byte[] octets = new byte[n];
+			tampon.get(octets);
+			return new String(octets, StandardCharsets.UTF_8);
+		}
+	};
+}
@@ -0,0 +1,495 @@
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * <p>
+ * Arbre rouge-noir spécialisé pour les clés de type long. Même structure et
+ * mêmes algorithmes que {@link ANR}, mais la clé est stockée directement dans
+ * le noeud : pas de Long alloué à chaque ajout et les comparaisons se font
+ * sans passer par un Comparator ni par le déballage.
+ * </p>
+ *
+ * <p>
+ * Les éléments sont ordonnés selon l'ordre naturel des long. Les méthodes de
+ * Collection restent disponibles avec des Long, elles appellent les
+ * versions primitives.
+ * </p>
+ */
+public class LongANR extends AbstractCollection<Long>
+{
+	private Noeud racine;
+	private int taille;
+	private final Noeud sentinelle = new Noeud(0);
+
+	private class Noeud
+	{
+		long cle;
+		Noeud gauche;
+		Noeud droit;
+		Noeud pere;
+		char  couleur;
+
+		Noeud(long cle)
+		{
+			this.cle = cle;
+			couleur = 'N';
+
+			gauche = sentinelle;
+			droit = sentinelle;
+			pere = sentinelle;
+		}
+
+		/**
+		 * Renvoie le noeud contenant la clé minimale du sous-arbre enraciné
+		 * dans ce noeud
+		 *
+		 * @return le noeud contenant la clé minimale du sous-arbre enraciné
+		 *         dans ce noeud
+		 */
+		Noeud minimum() {
+			Noeud x = this;
+			while (x.gauche != sentinelle) x = x.gauche;
+
+			return x;
+		}
+
+		/**
+		 * Renvoie le successeur de ce noeud
+		 *
+		 * @return le noeud contenant la clé qui suit la clé de ce noeud dans
+		 *         l'ordre des clés, la sentinelle si c'est le noeud contenant
+		 *         la plus grande clé
+		 */
+		Noeud suivant() {
+			Noeud x = this;
+			if (x.droit != sentinelle)
+				return x.droit.minimum();
+
+			Noeud y = x.pere;
+			while (y != sentinelle && x == y.droit)
+			{
+			    x = y;
+			    y = y.pere;
+			}
+
+			return y;
+		}
+	}
+
+	/**
+	 * Itérateur dans l'ordre croissant des clés, sans emballage si on utilise
+	 * {@link #nextLong()}
+	 */
+	private class LongANRIterator implements PrimitiveIterator.OfLong {
+		private Noeud suiv, prec;
+
+		public LongANRIterator()
+		{
+			prec = sentinelle;
+			if ( racine == sentinelle )
+				suiv = sentinelle;
+			else
+				suiv = racine.minimum();
+		}
+
+		public boolean hasNext()
+		{
+			return suiv != sentinelle;
+		}
+
+		public long nextLong()
+		{
+			if ( suiv == sentinelle ) throw new NoSuchElementException();
+			prec = suiv;
+			suiv = suiv.suivant();
+			return prec.cle;
+		}
+
+		public void remove()
+		{
+			if ( prec == sentinelle)  throw new IllegalStateException();
+			suiv = supprimer(prec);
+			prec = sentinelle;
+		}
+	}
+
+	// Constructeurs
+
+	/**
+	 * Crée un arbre vide
+	 */
+	public LongANR()
+	{
+		racine = sentinelle;
+	}
+
+	/**
+	 * Constructeur par recopie. Crée un arbre qui contient les mêmes éléments
+	 * que c.
+	 *
+	 * @param c
+	 *            la collection à copier
+	 */
+	public LongANR(Collection<? extends Long> c)
+	{
+		racine = sentinelle;
+		addAll(c);
+	}
+
+	@Override
+	public PrimitiveIterator.OfLong iterator() {return new LongANRIterator();}
+
+	@Override
+	public int size() {return taille;}
+
+	/**
+	 * Recherche une clé.
+	 *
+	 * @param cle
+	 *            la clé à chercher
+	 * @return le noeud qui contient la clé ou la sentinelle si la clé n'est
+	 *         pas trouvée.
+	 */
+	private Noeud rechercher(long cle)
+	{
+		Noeud x = racine;
+
+		while (x != sentinelle && cle != x.cle)
+			x = cle < x.cle ? x.gauche : x.droit;
+
+		return x;
+	}
+
+	/**
+	 * Supprime le noeud z.
+	 *
+	 * @param z
+	 *            le noeud à supprimer
+	 * @return le noeud contenant la clé qui suit celle de z dans l'ordre des
+	 *         clés
+	 */
+	private Noeud supprimer(Noeud z)
+	{
+		Noeud y, x;
+		Noeud svt = z.suivant();
+
+		if (z.gauche == sentinelle || z.droit == sentinelle)
+			y = z;
+		else
+			y = svt;
+		// y est le nœud à détacher
+
+		if (y.gauche != sentinelle)
+			x = y.gauche;
+		else
+			x = y.droit;
+		// x est le fils unique de y ou la sentinelle si y n'a pas de fils
+
+		x.pere = y.pere;
+
+		if (y.pere == sentinelle) // suppression de la racine
+			racine = x;
+		else if (y == y.pere.gauche)
+			y.pere.gauche = x;
+		else
+			y.pere.droit = x;
+
+		if (y != z)
+		{
+			z.cle = y.cle;
+			svt = z;
+		}
+		if (y.couleur == 'N')
+			supprimerCorrection(x);
+
+		taille--;
+		return svt;
+	}
+
+	private void supprimerCorrection(Noeud x)
+	{
+		Noeud w;
+		while (x != racine && x.couleur == 'N')
+		{
+			if (x == x.pere.gauche)
+			{
+				w = x.pere.droit; // le frère de x
+				if (w.couleur == 'R')
+				{
+					// cas 1
+					w.couleur = 'N';
+					x.pere.couleur = 'R';
+					rotationGauche(x.pere);
+					w = x.pere.droit;
+				}
+				if (w.gauche.couleur == 'N' && w.droit.couleur == 'N')
+				{
+					// cas 2
+					w.couleur = 'R';
+					x = x.pere;
+				} else
+				{
+					if (w.droit.couleur == 'N')
+					{
+						// cas 3
+						w.gauche.couleur = 'N';
+						w.couleur = 'R';
+						rotationDroite(w);
+						w = x.pere.droit;
+					}
+					// cas 4
+					w.couleur = x.pere.couleur;
+					x.pere.couleur = 'N';
+					w.droit.couleur = 'N';
+					rotationGauche(x.pere);
+					x = racine;
+				}
+			} else
+			{
+				w = x.pere.gauche; // le frère de x
+				if (w.couleur == 'R')
+				{
+					// cas 1
+					w.couleur = 'N';
+					x.pere.couleur = 'R';
+					rotationDroite(x.pere);
+					w = x.pere.gauche;
+				}
+				if (w.droit.couleur == 'N' && w.gauche.couleur == 'N')
+				{
+					// cas 2
+					w.couleur = 'R';
+					x = x.pere;
+				} else
+				{
+					if (w.gauche.couleur == 'N')
+					{
+						// cas 3
+						w.droit.couleur = 'N';
+						w.couleur = 'R';
+						rotationGauche(w);
+						w = x.pere.gauche;
+					}
+					// cas 4
+					w.couleur = x.pere.couleur;
+					x.pere.couleur = 'N';
+					w.gauche.couleur = 'N';
+					rotationDroite(x.pere);
+					x = racine;
+				}
+			}
+		}
+		x.couleur = 'N';
+	}
+
+	/**
+	 * Ajoute un noeud dans l'arbre
+	 *
+	 * @param z le noeud à rajouter
+	 */
+	private void ajouter(Noeud z)
+	{
+		Noeud y = sentinelle;
+		Noeud x = racine;
+
+		while (x != sentinelle)
+		{
+			y = x;
+			x = z.cle < x.cle ? x.gauche : x.droit;
+		}
+		z.pere = y;
+		if (y == sentinelle)
+			racine = z;
+		else if (z.cle < y.cle)
+			y.gauche = z;
+		else
+			y.droit = z;
+
+		z.couleur = 'R';
+		ajouterCorrection(z);
+		taille++;
+	}
+
+	private void ajouterCorrection(Noeud n)
+	{
+		// re organisation de l'arbre, en remontant vers la racine
+		while (n != racine && n.pere.couleur == 'R')
+		{
+			if (n.pere == n.pere.pere.gauche)
+			{
+				Noeud y = n.pere.pere.droit;
+				if (y.couleur == 'R')
+				{
+					n.pere.couleur = 'N';
+					y.couleur = 'N';
+					n.pere.pere.couleur = 'R';
+					n = n.pere.pere;
+				} else
+				{
+					if (n == n.pere.droit)
+					{
+						n = n.pere;
+						rotationGauche(n);
+					}
+					n.pere.couleur = 'N';
+					n.pere.pere.couleur = 'R';
+					rotationDroite(n.pere.pere);
+				}
+			} else
+			{
+				Noeud y = n.pere.pere.gauche;
+				if (y.couleur == 'R')
+				{
+					n.pere.couleur = 'N';
+					y.couleur = 'N';
+					n.pere.pere.couleur = 'R';
+					n = n.pere.pere;
+				} else
+				{
+					if (n == n.pere.gauche)
+					{
+						n = n.pere;
+						rotationDroite(n);
+					}
+					n.pere.couleur = 'N';
+					n.pere.pere.couleur = 'R';
+					rotationGauche(n.pere.pere);
+				}
+			}
+		}
+		racine.couleur = 'N';
+	}
+
+	private void rotationGauche(Noeud z)
+	{
+		Noeud tmp = z.droit;
+		z.droit = tmp.gauche;
+
+		if (tmp.gauche != sentinelle)
+			tmp.gauche.pere = z;
+
+		tmp.pere = z.pere;
+		if (z.pere == sentinelle)
+			racine = tmp;
+		else if (z.pere.gauche == z)
+			z.pere.gauche = tmp;
+		else
+			z.pere.droit = tmp;
+
+		tmp.gauche = z;
+		z.pere = tmp;
+	}
+
+	private void rotationDroite(Noeud z)
+	{
+		Noeud tmp = z.gauche;
+		z.gauche = tmp.droit;
+
+		if (tmp.droit != sentinelle)
+			tmp.droit.pere = z;
+
+		tmp.pere = z.pere;
+		if (z.pere == sentinelle)
+			racine = tmp;
+		else if (z.pere.droit == z)
+			z.pere.droit = tmp;
+		else
+			z.pere.gauche = tmp;
+
+		tmp.droit = z;
+		z.pere = tmp;
+	}
+
+	// Versions primitives
+
+	/**
+	 * Ajoute une clé dans l'arbre
+	 *
+	 * @param e la clé à ajouter
+	 * @return true
+	 */
+	public boolean add(long e)
+	{
+		ajouter(new Noeud(e));
+		return true;
+	}
+
+	/**
+	 * Teste la présence d'une clé
+	 *
+	 * @param e la clé à chercher
+	 * @return true si l'arbre contient la clé
+	 */
+	public boolean contains(long e)
+	{
+		return rechercher(e) != sentinelle;
+	}
+
+	/**
+	 * Supprime une occurrence de la clé
+	 *
+	 * @param e la clé à supprimer
+	 * @return true si la clé était présente
+	 */
+	public boolean remove(long e)
+	{
+		Noeud n = rechercher(e);
+		if (n == sentinelle)
+			return false;
+
+		supprimer(n);
+		return true;
+	}
+
+	// Méthodes de Collection
+
+	@Override
+	public boolean add(Long e)
+	{
+		return add(e.longValue());
+	}
+
+	@Override
+	public boolean contains(Object o)
+	{
+		return o instanceof Long && contains(((Long) o).longValue());
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		return o instanceof Long && remove(((Long) o).longValue());
+	}
+
+	@Override
+	public void clear()
+	{
+		racine = sentinelle;
+		taille = 0;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return racine == sentinelle;
+	}
+
+	/**
+	 * Renvoie les clés dans l'ordre croissant
+	 *
+	 * @return un tableau contenant toutes les clés de l'arbre
+	 */
+	public long[] toLongArray()
+	{
+		long[] cles = new long[taille];
+		PrimitiveIterator.OfLong i = iterator();
+		int cpt = 0;
+
+		while (i.hasNext())
+			cles[cpt++] = i.nextLong();
+
+		return cles;
+	}
+}
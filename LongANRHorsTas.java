@@ -0,0 +1,654 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * <p>
+ * Arbre rouge-noir de clés long dont les noeuds sont stockés hors du tas Java,
+ * dans des blocs de mémoire directe (ou projetés depuis un fichier). Le
+ * ramasse-miettes ne voit que quelques ByteBuffer, quel que soit le nombre de
+ * clés.
+ * </p>
+ *
+ * <p>
+ * Chaque noeud occupe {@value #TAILLE_NOEUD} octets : la clé, les indices du
+ * fils gauche, du fils droit et du père, puis la couleur. Comme dans
+ * {@link ANRTableau} un noeud est un indice et l'indice 0 est la sentinelle.
+ * Les blocs sont alloués au fur et à mesure, l'arbre n'est donc jamais recopié
+ * quand il grandit.
+ * </p>
+ *
+ * <p>
+ * L'arbre doit être fermé par {@link #close()} : les blocs ne sont plus
+ * référencés et toute opération ultérieure lève une IllegalStateException.
+ * Java ne permet pas de libérer la mémoire directe immédiatement, elle est
+ * rendue au système quand les ByteBuffer sont ramassés.
+ * </p>
+ */
+public class LongANRHorsTas extends AbstractCollection<Long> implements AutoCloseable
+{
+	private static final int SENTINELLE = 0;
+
+	// Disposition d'un noeud
+	private static final int CLE = 0;
+	private static final int GAUCHE = 8;
+	private static final int DROIT = 12;
+	private static final int PERE = 16;
+	private static final int COULEUR = 20;
+	private static final int TAILLE_NOEUD = 24;
+
+	private static final int ROUGE = 1;
+	private static final int NOIR = 0;
+
+	// Un bloc contient 2^16 noeuds (1,5 Mo)
+	private static final int BITS_BLOC = 16;
+	private static final int NOEUDS_PAR_BLOC = 1 << BITS_BLOC;
+	private static final int MASQUE_BLOC = NOEUDS_PAR_BLOC - 1;
+	private static final long OCTETS_PAR_BLOC = (long) NOEUDS_PAR_BLOC * TAILLE_NOEUD;
+
+	private ByteBuffer[] blocs = new ByteBuffer[4];
+	private int nbBlocs;
+	private final FileChannel fichier;
+	private boolean ouvert = true;
+
+	private int racine;
+	private int taille;
+	private int prochain;   // premier indice jamais utilisé
+	private int libres;     // tête de la liste des indices libérés
+
+	/**
+	 * Itérateur dans l'ordre croissant des clés
+	 */
+	private class LongANRHorsTasIterator implements PrimitiveIterator.OfLong {
+		private int suiv, prec;
+
+		public LongANRHorsTasIterator()
+		{
+			verifierOuvert();
+			prec = SENTINELLE;
+			suiv = racine == SENTINELLE ? SENTINELLE : minimum(racine);
+		}
+
+		public boolean hasNext()
+		{
+			return suiv != SENTINELLE;
+		}
+
+		public long nextLong()
+		{
+			verifierOuvert();
+			if ( suiv == SENTINELLE ) throw new NoSuchElementException();
+			prec = suiv;
+			suiv = suivant(suiv);
+			return cle(prec);
+		}
+
+		public void remove()
+		{
+			verifierOuvert();
+			if ( prec == SENTINELLE )  throw new IllegalStateException();
+			suiv = supprimer(prec);
+			prec = SENTINELLE;
+		}
+	}
+
+	// Constructeurs
+
+	/**
+	 * Crée un arbre vide en mémoire directe
+	 */
+	public LongANRHorsTas()
+	{
+		fichier = null;
+		clear();
+	}
+
+	/**
+	 * Crée un arbre vide dont les noeuds sont stockés dans le fichier, projeté
+	 * en mémoire bloc par bloc. Le fichier est créé ou écrasé ; il sert
+	 * seulement de stockage et ne peut pas être relu par un autre arbre.
+	 *
+	 * @param chemin
+	 *            le fichier de stockage
+	 * @throws IOException
+	 *             si le fichier ne peut pas être ouvert
+	 */
+	public LongANRHorsTas(Path chemin) throws IOException
+	{
+		fichier = FileChannel.open(chemin, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		clear();
+	}
+
+	/**
+	 * Constructeur par recopie, en mémoire directe.
+	 *
+	 * @param c
+	 *            la collection à copier
+	 */
+	public LongANRHorsTas(Collection<? extends Long> c)
+	{
+		this();
+		addAll(c);
+	}
+
+	// Accès aux noeuds
+
+	private ByteBuffer bloc(int x)
+	{
+		return blocs[x >>> BITS_BLOC];
+	}
+
+	private static int position(int x, int champ)
+	{
+		return (x & MASQUE_BLOC) * TAILLE_NOEUD + champ;
+	}
+
+	private long cle(int x) { return bloc(x).getLong(position(x, CLE)); }
+	private int gauche(int x) { return bloc(x).getInt(position(x, GAUCHE)); }
+	private int droit(int x) { return bloc(x).getInt(position(x, DROIT)); }
+	private int pere(int x) { return bloc(x).getInt(position(x, PERE)); }
+	private boolean rouge(int x) { return bloc(x).getInt(position(x, COULEUR)) == ROUGE; }
+
+	private void setCle(int x, long cle) { bloc(x).putLong(position(x, CLE), cle); }
+	private void setGauche(int x, int y) { bloc(x).putInt(position(x, GAUCHE), y); }
+	private void setDroit(int x, int y) { bloc(x).putInt(position(x, DROIT), y); }
+	private void setPere(int x, int y) { bloc(x).putInt(position(x, PERE), y); }
+
+	private void colorer(int x, boolean rouge)
+	{
+		// la sentinelle reste noire
+		if (x != SENTINELLE)
+			bloc(x).putInt(position(x, COULEUR), rouge ? ROUGE : NOIR);
+	}
+
+	private void verifierOuvert()
+	{
+		if (!ouvert) throw new IllegalStateException("arbre fermé");
+	}
+
+	/**
+	 * Ajoute un bloc de noeuds, en mémoire directe ou projeté depuis le
+	 * fichier
+	 */
+	private void ajouterBloc()
+	{
+		if (nbBlocs == blocs.length)
+			blocs = Arrays.copyOf(blocs, nbBlocs * 2);
+
+		ByteBuffer bloc;
+		if (fichier == null)
+			bloc = ByteBuffer.allocateDirect((int) OCTETS_PAR_BLOC);
+		else
+		{
+			try
+			{
+				bloc = fichier.map(FileChannel.MapMode.READ_WRITE, nbBlocs * OCTETS_PAR_BLOC, OCTETS_PAR_BLOC);
+			} catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+		}
+		blocs[nbBlocs++] = bloc.order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Renvoie un indice libre, en réutilisant d'abord ceux libérés par les
+	 * suppressions, puis en ajoutant un bloc si besoin
+	 *
+	 * @return l'indice du nouveau noeud
+	 */
+	private int nouveauNoeud(long cle)
+	{
+		int z;
+		if (libres != SENTINELLE)
+		{
+			z = libres;
+			libres = gauche(z);
+		} else
+		{
+			if (prochain == Integer.MAX_VALUE)
+				throw new IllegalStateException("arbre plein");
+			if ((prochain >>> BITS_BLOC) == nbBlocs)
+				ajouterBloc();
+			z = prochain++;
+		}
+		setCle(z, cle);
+		setGauche(z, SENTINELLE);
+		setDroit(z, SENTINELLE);
+		setPere(z, SENTINELLE);
+		return z;
+	}
+
+	private void liberer(int z)
+	{
+		colorer(z, false);
+		setGauche(z, libres);
+		libres = z;
+	}
+
+	@Override
+	public PrimitiveIterator.OfLong iterator() {return new LongANRHorsTasIterator();}
+
+	@Override
+	public int size() {return taille;}
+
+	/**
+	 * Renvoie le noeud contenant la clé minimale du sous-arbre enraciné en x
+	 */
+	private int minimum(int x)
+	{
+		while (gauche(x) != SENTINELLE) x = gauche(x);
+		return x;
+	}
+
+	/**
+	 * Renvoie le successeur de x, la sentinelle si x contient la plus grande
+	 * clé
+	 */
+	private int suivant(int x)
+	{
+		if (droit(x) != SENTINELLE)
+			return minimum(droit(x));
+
+		int y = pere(x);
+		while (y != SENTINELLE && x == droit(y))
+		{
+			x = y;
+			y = pere(y);
+		}
+		return y;
+	}
+
+	/**
+	 * Recherche une clé.
+	 *
+	 * @param cle
+	 *            la clé à chercher
+	 * @return l'indice du noeud qui contient la clé ou la sentinelle si la clé
+	 *         n'est pas trouvée.
+	 */
+	private int rechercher(long cle)
+	{
+		int x = racine;
+
+		while (x != SENTINELLE)
+		{
+			long c = cle(x);
+			if (cle == c)
+				break;
+			x = cle < c ? gauche(x) : droit(x);
+		}
+		return x;
+	}
+
+	/**
+	 * Supprime le noeud z.
+	 *
+	 * @param z
+	 *            le noeud à supprimer
+	 * @return le noeud contenant la clé qui suit celle de z dans l'ordre des
+	 *         clés
+	 */
+	private int supprimer(int z)
+	{
+		int y, x;
+		int svt = suivant(z);
+
+		if (gauche(z) == SENTINELLE || droit(z) == SENTINELLE)
+			y = z;
+		else
+			y = svt;
+		// y est le nœud à détacher
+
+		if (gauche(y) != SENTINELLE)
+			x = gauche(y);
+		else
+			x = droit(y);
+		// x est le fils unique de y ou la sentinelle si y n'a pas de fils
+
+		int py = pere(y);
+		setPere(x, py);
+
+		if (py == SENTINELLE) // suppression de la racine
+			racine = x;
+		else if (y == gauche(py))
+			setGauche(py, x);
+		else
+			setDroit(py, x);
+
+		if (y != z)
+		{
+			setCle(z, cle(y));
+			svt = z;
+		}
+		boolean noir = !rouge(y);
+		liberer(y);
+		if (noir)
+			supprimerCorrection(x);
+
+		taille--;
+		return svt;
+	}
+
+	private void supprimerCorrection(int x)
+	{
+		int w;
+		while (x != racine && !rouge(x))
+		{
+			if (x == gauche(pere(x)))
+			{
+				w = droit(pere(x)); // le frère de x
+				if (rouge(w))
+				{
+					// cas 1
+					colorer(w, false);
+					colorer(pere(x), true);
+					rotationGauche(pere(x));
+					w = droit(pere(x));
+				}
+				if (!rouge(gauche(w)) && !rouge(droit(w)))
+				{
+					// cas 2
+					colorer(w, true);
+					x = pere(x);
+				} else
+				{
+					if (!rouge(droit(w)))
+					{
+						// cas 3
+						colorer(gauche(w), false);
+						colorer(w, true);
+						rotationDroite(w);
+						w = droit(pere(x));
+					}
+					// cas 4
+					colorer(w, rouge(pere(x)));
+					colorer(pere(x), false);
+					colorer(droit(w), false);
+					rotationGauche(pere(x));
+					x = racine;
+				}
+			} else
+			{
+				w = gauche(pere(x)); // le frère de x
+				if (rouge(w))
+				{
+					// cas 1
+					colorer(w, false);
+					colorer(pere(x), true);
+					rotationDroite(pere(x));
+					w = gauche(pere(x));
+				}
+				if (!rouge(droit(w)) && !rouge(gauche(w)))
+				{
+					// cas 2
+					colorer(w, true);
+					x = pere(x);
+				} else
+				{
+					if (!rouge(gauche(w)))
+					{
+						// cas 3
+						colorer(droit(w), false);
+						colorer(w, true);
+						rotationGauche(w);
+						w = gauche(pere(x));
+					}
+					// cas 4
+					colorer(w, rouge(pere(x)));
+					colorer(pere(x), false);
+					colorer(gauche(w), false);
+					rotationDroite(pere(x));
+					x = racine;
+				}
+			}
+		}
+		colorer(x, false);
+	}
+
+	/**
+	 * Ajoute un noeud dans l'arbre
+	 *
+	 * @param z l'indice du noeud à rajouter
+	 */
+	private void ajouter(int z)
+	{
+		int y = SENTINELLE;
+		int x = racine;
+		long cle = cle(z);
+
+		while (x != SENTINELLE)
+		{
+			y = x;
+			x = cle < cle(x) ? gauche(x) : droit(x);
+		}
+		setPere(z, y);
+		if (y == SENTINELLE)
+			racine = z;
+		else if (cle < cle(y))
+			setGauche(y, z);
+		else
+			setDroit(y, z);
+
+		colorer(z, true);
+		ajouterCorrection(z);
+		taille++;
+	}
+
+	private void ajouterCorrection(int n)
+	{
+		// re organisation de l'arbre, en remontant vers la racine
+		while (n != racine && rouge(pere(n)))
+		{
+			int p = pere(n), gp = pere(p);
+			if (p == gauche(gp))
+			{
+				int y = droit(gp);
+				if (rouge(y))
+				{
+					colorer(p, false);
+					colorer(y, false);
+					colorer(gp, true);
+					n = gp;
+				} else
+				{
+					if (n == droit(p))
+					{
+						n = p;
+						rotationGauche(n);
+					}
+					colorer(pere(n), false);
+					colorer(pere(pere(n)), true);
+					rotationDroite(pere(pere(n)));
+				}
+			} else
+			{
+				int y = gauche(gp);
+				if (rouge(y))
+				{
+					colorer(p, false);
+					colorer(y, false);
+					colorer(gp, true);
+					n = gp;
+				} else
+				{
+					if (n == gauche(p))
+					{
+						n = p;
+						rotationDroite(n);
+					}
+					colorer(pere(n), false);
+					colorer(pere(pere(n)), true);
+					rotationGauche(pere(pere(n)));
+				}
+			}
+		}
+		colorer(racine, false);
+	}
+
+	private void rotationGauche(int z)
+	{
+		int tmp = droit(z);
+		int g = gauche(tmp);
+		setDroit(z, g);
+
+		if (g != SENTINELLE)
+			setPere(g, z);
+
+		int pz = pere(z);
+		setPere(tmp, pz);
+		if (pz == SENTINELLE)
+			racine = tmp;
+		else if (gauche(pz) == z)
+			setGauche(pz, tmp);
+		else
+			setDroit(pz, tmp);
+
+		setGauche(tmp, z);
+		setPere(z, tmp);
+	}
+
+	private void rotationDroite(int z)
+	{
+		int tmp = gauche(z);
+		int d = droit(tmp);
+		setGauche(z, d);
+
+		if (d != SENTINELLE)
+			setPere(d, z);
+
+		int pz = pere(z);
+		setPere(tmp, pz);
+		if (pz == SENTINELLE)
+			racine = tmp;
+		else if (droit(pz) == z)
+			setDroit(pz, tmp);
+		else
+			setGauche(pz, tmp);
+
+		setDroit(tmp, z);
+		setPere(z, tmp);
+	}
+
+	// Versions primitives
+
+	/**
+	 * Ajoute une clé dans l'arbre
+	 *
+	 * @param e la clé à ajouter
+	 * @return true
+	 */
+	public boolean add(long e)
+	{
+		verifierOuvert();
+		ajouter(nouveauNoeud(e));
+		return true;
+	}
+
+	/**
+	 * Teste la présence d'une clé
+	 *
+	 * @param e la clé à chercher
+	 * @return true si l'arbre contient la clé
+	 */
+	public boolean contains(long e)
+	{
+		verifierOuvert();
+		return rechercher(e) != SENTINELLE;
+	}
+
+	/**
+	 * Supprime une occurrence de la clé
+	 *
+	 * @param e la clé à supprimer
+	 * @return true si la clé était présente
+	 */
+	public boolean remove(long e)
+	{
+		verifierOuvert();
+		int n = rechercher(e);
+		if (n == SENTINELLE)
+			return false;
+
+		supprimer(n);
+		return true;
+	}
+
+	// Méthodes de Collection
+
+	@Override
+	public boolean add(Long e)
+	{
+		return add(e.longValue());
+	}
+
+	@Override
+	public boolean contains(Object o)
+	{
+		return o instanceof Long && contains(((Long) o).longValue());
+	}
+
+	@Override
+	public boolean remove(Object o)
+	{
+		return o instanceof Long && remove(((Long) o).longValue());
+	}
+
+	/**
+	 * Vide l'arbre. Les blocs déjà alloués sont conservés et réutilisés.
+	 */
+	@Override
+	public void clear()
+	{
+		verifierOuvert();
+		if (nbBlocs == 0)
+			ajouterBloc();
+		// la sentinelle
+		setGauche(SENTINELLE, SENTINELLE);
+		setDroit(SENTINELLE, SENTINELLE);
+		setPere(SENTINELLE, SENTINELLE);
+		bloc(SENTINELLE).putInt(position(SENTINELLE, COULEUR), NOIR);
+
+		racine = SENTINELLE;
+		taille = 0;
+		prochain = SENTINELLE + 1;
+		libres = SENTINELLE;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return racine == SENTINELLE;
+	}
+
+	/**
+	 * Ferme l'arbre : les blocs ne sont plus référencés et le fichier éventuel
+	 * est fermé. Fermer un arbre déjà fermé ne fait rien.
+	 *
+	 * @throws IOException
+	 *             si le fichier ne peut pas être fermé
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (!ouvert)
+			return;
+		ouvert = false;
+		blocs = null;
+		nbBlocs = 0;
+		racine = SENTINELLE;
+		taille = 0;
+		if (fichier != null)
+			fichier.close();
+	}
+}
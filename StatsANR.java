@@ -0,0 +1,58 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Les compteurs d'un {@link ANR}, incrémentés par l'arbre quand ils sont
+ * activés (cf {@link ANR#activerStats()}). Des LongAdder plutôt qu'un simple
+ * long : les recherches d'un {@link ANRConcurrent} se font en parallèle.
+ */
+class StatsANR implements TreeStatsMXBean
+{
+	final LongAdder recherches = new LongAdder();
+	final LongAdder comparaisons = new LongAdder();
+	final LongAdder ajouts = new LongAdder();
+	final LongAdder suppressions = new LongAdder();
+	final LongAdder rotations = new LongAdder();
+	final LongAdder recolorations = new LongAdder();
+	final LongAdder iterationsCorrection = new LongAdder();
+	final LongAccumulator profondeurMax = new LongAccumulator(Long::max, 0);
+
+	private final ANR<?> arbre;
+
+	StatsANR(ANR<?> arbre)
+	{
+		this.arbre = arbre;
+	}
+
+	public long getRecherches() {return recherches.sum();}
+
+	public long getComparaisons() {return comparaisons.sum();}
+
+	public long getAjouts() {return ajouts.sum();}
+
+	public long getSuppressions() {return suppressions.sum();}
+
+	public long getRotations() {return rotations.sum();}
+
+	public long getRecolorations() {return recolorations.sum();}
+
+	public long getIterationsCorrection() {return iterationsCorrection.sum();}
+
+	public int getNombreNoeuds() {return arbre.nombreNoeuds();}
+
+	public long getProfondeurMax() {return profondeurMax.get();}
+
+	public int getHauteurNoire() {return arbre.hauteurNoireBornee();}
+
+	public void reinitialiser()
+	{
+		recherches.reset();
+		comparaisons.reset();
+		ajouts.reset();
+		suppressions.reset();
+		rotations.reset();
+		recolorations.reset();
+		iterationsCorrection.reset();
+		profondeurMax.reset();
+	}
+}
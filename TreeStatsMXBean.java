@@ -0,0 +1,60 @@
+/**
+ * <p>
+ * Compteurs d'un {@link ANR}, publiés par JMX (cf {@link ANR#publierStats}).
+ * Les compteurs sont cumulés depuis l'activation ou la dernière remise à zéro
+ * ; les rapports (comparaisons par recherche, rotations par ajout) se
+ * calculent côté tableau de bord.
+ * </p>
+ *
+ * <p>
+ * Les lectures ne prennent aucun verrou : pendant une écriture les valeurs
+ * peuvent être légèrement en retard.
+ * </p>
+ */
+public interface TreeStatsMXBean
+{
+	/** @return le nombre de recherches (contains, remove...) */
+	long getRecherches();
+
+	/** @return le nombre de comparaisons faites par les recherches */
+	long getComparaisons();
+
+	/** @return le nombre d'ajouts */
+	long getAjouts();
+
+	/** @return le nombre de suppressions */
+	long getSuppressions();
+
+	/** @return le nombre de rotations, ajouts et suppressions confondus */
+	long getRotations();
+
+	/** @return le nombre de noeuds recolorés par les corrections */
+	long getRecolorations();
+
+	/**
+	 * @return le nombre de tours des boucles de correction après ajout ou
+	 *         suppression
+	 */
+	long getIterationsCorrection();
+
+	/** @return le nombre de noeuds de l'arbre */
+	int getNombreNoeuds();
+
+	/**
+	 * @return la plus grande profondeur à laquelle un noeud a été ajouté (la
+	 *         racine est à la profondeur 0)
+	 */
+	long getProfondeurMax();
+
+	/**
+	 * @return la hauteur noire de l'arbre, le nombre de noeuds noirs d'un
+	 *         chemin de la racine à une feuille. La hauteur de l'arbre est
+	 *         comprise entre une et deux fois cette valeur.
+	 */
+	int getHauteurNoire();
+
+	/**
+	 * Remet les compteurs à zéro
+	 */
+	void reinitialiser();
+}
@@ -0,0 +1,169 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Étude expérimentale du README : comparaison des ABR et des ANR contenant n
+ * clés, ajoutées en ordre aléatoire (cas moyen) ou croissant (pire cas des
+ * ABR).
+ * 
+ * <p>
+ * Chaque benchmark mesure une passe complète : construction de l'arbre (clé
+ * par clé, ou en bloc depuis les clés triées), recherche des n clés présentes
+ * (0,...,n-1), recherche des n clés absentes (n,...,2n-1), recherche des n
+ * clés présentes triées en un seul containsAll, suppression de toutes les
+ * clés et parcours par l'itérateur.
+ * </p>
+ * 
+ * <pre>
+ * cd bench
+ * mvn -B package
+ * java -jar target/benchmarks.jar ArbresBenchmark -p n=1000,100000
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ArbresBenchmark
+{
+	@Param({ "ABR", "ANR", "ANRTableau", "ArbreB" })
+	String moteur;
+
+	@Param({ "1000", "10000", "100000" })
+	int n;
+
+	@Param({ "Integer", "String" })
+	String type;
+
+	@Param({ "aleatoire", "croissant" })
+	String ordre;
+
+	@SuppressWarnings("rawtypes")
+	Comparable[] cles;
+
+	// Copies distinctes des clés de l'arbre : la recherche ne doit pas
+	// pouvoir s'arrêter sur une égalité de références
+	@SuppressWarnings("rawtypes")
+	Comparable[] presentes, absentes;
+
+	// Les mêmes clés dans l'ordre croissant, pour le chargement en bloc
+	@SuppressWarnings("rawtypes")
+	List<Comparable> triees;
+
+	// Les clés présentes dans un SortedSet, que containsAll peut parcourir
+	// dans l'ordre de l'arbre
+	@SuppressWarnings("rawtypes")
+	SortedSet<Comparable> ensembleTrie;
+
+	@SuppressWarnings("rawtypes")
+	Collection<Comparable> arbre;
+
+	@Setup(Level.Trial)
+	public void preparer()
+	{
+		cles = Cles.cles(type, 0, n, ordre, 42);
+		presentes = Cles.cles(type, 0, n, ordre, 43);
+		absentes = Cles.cles(type, n, 2 * n, ordre, 44);
+		triees = Arrays.asList(Cles.cles(type, 0, n, "croissant", 0));
+		ensembleTrie = new TreeSet<>(Arrays.asList(presentes));
+		arbre = construire();
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Benchmark
+	public Collection<Comparable> construire()
+	{
+		Collection<Comparable> c = Moteurs.creer(moteur);
+		for (Comparable cle : cles)
+			c.add(cle);
+		return c;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Benchmark
+	public Collection<Comparable> construireDepuisTrie()
+	{
+		Collection<Comparable> c = Moteurs.creer(moteur);
+		c.addAll(triees);
+		return c;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Benchmark
+	public void rechercherPresentes(Blackhole bh)
+	{
+		for (Comparable cle : presentes)
+			bh.consume(arbre.contains(cle));
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Benchmark
+	public void rechercherAbsentes(Blackhole bh)
+	{
+		for (Comparable cle : absentes)
+			bh.consume(arbre.contains(cle));
+	}
+
+	@Benchmark
+	public boolean rechercherPresentesTriees()
+	{
+		return arbre.containsAll(ensembleTrie);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Benchmark
+	public void parcourir(Blackhole bh)
+	{
+		for (Comparable cle : arbre)
+			bh.consume(cle);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Benchmark
+	public Collection<Comparable> supprimer(ArbreNeuf neuf)
+	{
+		Collection<Comparable> c = neuf.arbre;
+		for (Comparable cle : presentes)
+			c.remove(cle);
+		return c;
+	}
+
+	/**
+	 * Un arbre reconstruit avant chaque appel de {@link #supprimer}, qui le
+	 * vide
+	 */
+	@State(Scope.Thread)
+	public static class ArbreNeuf
+	{
+		@SuppressWarnings("rawtypes")
+		Collection<Comparable> arbre;
+
+		@Setup(Level.Invocation)
+		public void construire(ArbresBenchmark b)
+		{
+			arbre = b.construire();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package bench;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Construction et recherche de n chaînes présentes et n absentes dans un
+ * ANR&lt;String&gt; et dans ANRChaine, qui compare d'abord les préfixes gardés
+ * dans les noeuds. Les clés sont soit des chaînes aléatoires de 12 lettres,
+ * qui diffèrent presque toujours dans leurs 4 premiers caractères, soit les
+ * chaînes "%010d" du README, qui commencent toutes par "0000" : chaque
+ * comparaison retombe alors sur compareTo.
+ * 
+ * <pre>
+ * cd bench
+ * mvn -B package
+ * java -jar target/benchmarks.jar ChaineBenchmark -p n=1000,1000000
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ChaineBenchmark
+{
+	@Param({ "ANR", "ANRChaine" })
+	String moteur;
+
+	@Param({ "1000", "100000" })
+	int n;
+
+	@Param({ "aleatoire", "prefixeCommun" })
+	String cles;
+
+	// n clés à ajouter puis n clés absentes
+	String[] aAjouter;
+	String[] sondes;
+
+	@SuppressWarnings("rawtypes")
+	Collection<Comparable> arbre;
+
+	@Setup(Level.Trial)
+	public void preparer()
+	{
+		String[] toutes = new String[2 * n];
+		if ( cles.equals("prefixeCommun") )
+		{
+			for (int i = 0; i < toutes.length; i++)
+				toutes[i] = (String) Cles.cle("String", i);
+		} else
+		{
+			Random random = new Random(42);
+			Set<String> vues = new HashSet<>();
+			char[] c = new char[12];
+			for (int i = 0; i < toutes.length;)
+			{
+				for (int j = 0; j < c.length; j++)
+					c[j] = (char) ('a' + random.nextInt(26));
+				String s = new String(c);
+				if ( vues.add(s) )
+					toutes[i++] = s;
+			}
+		}
+
+		aAjouter = new String[n];
+		System.arraycopy(toutes, 0, aAjouter, 0, n);
+		Cles.melanger(aAjouter, new Random(43));
+		sondes = toutes.clone();
+		Cles.melanger(sondes, new Random(44));
+
+		arbre = construire();
+	}
+
+	@SuppressWarnings("rawtypes")
+	private Collection<Comparable> construire()
+	{
+		Collection<Comparable> a = Moteurs.creer(moteur);
+		for (String s : aAjouter)
+			a.add(s);
+		return a;
+	}
+
+	@Benchmark
+	public Object construction()
+	{
+		return construire();
+	}
+
+	@Benchmark
+	public void rechercher(Blackhole bh)
+	{
+		for (String s : sondes)
+			bh.consume(arbre.contains(s));
+	}
+}
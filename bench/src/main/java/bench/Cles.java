@@ -0,0 +1,70 @@
+package bench;
+
+import java.util.Random;
+
+/**
+ * Génération des clés utilisées par les benchmarks : les nombres 0,...,n-1
+ * (cf README) sous forme d'Integer ou de String de longueur fixe, pour que
+ * l'ordre lexicographique soit le même que l'ordre numérique
+ */
+final class Cles
+{
+	private Cles() {}
+
+	@SuppressWarnings("rawtypes")
+	static Comparable cle(String type, int i)
+	{
+		switch (type) 
+		{
+			case "Integer": return Integer.valueOf(i);
+			case "String": return String.format("%010d", i);
+			default: throw new IllegalArgumentException("Type de clé inconnu : " + type);
+		}
+	}
+
+	/**
+	 * Renvoie les clés debut,...,fin-1 dans l'ordre demandé
+	 * 
+	 * @param type
+	 *            Integer ou String
+	 * @param debut
+	 *            la première clé (incluse)
+	 * @param fin
+	 *            la dernière clé (exclue)
+	 * @param ordre
+	 *            croissant ou aleatoire
+	 * @param graine
+	 *            la graine du mélange, pour que chaque fork voie les mêmes
+	 *            clés
+	 * @return le tableau des clés
+	 */
+	@SuppressWarnings("rawtypes")
+	static Comparable[] cles(String type, int debut, int fin, String ordre, long graine)
+	{
+		Comparable[] t = new Comparable[fin - debut];
+		for (int i = 0; i < t.length; i++)
+			t[i] = cle(type, debut + i);
+
+		switch (ordre) 
+		{
+			case "croissant":
+				break;
+			case "aleatoire":
+				melanger(t, new Random(graine));
+				break;
+			default: throw new IllegalArgumentException("Ordre inconnu : " + ordre);
+		}
+		return t;
+	}
+
+	static void melanger(Object[] t, Random random)
+	{
+		for (int i = t.length - 1; i > 0; i--) 
+		{
+			int j = random.nextInt(i + 1);
+			Object tmp = t[i];
+			t[i] = t[j];
+			t[j] = tmp;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package bench;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Débit des recherches sur un arbre partagé entre plusieurs threads : ANR
+ * enveloppé par Collections.synchronizedCollection (moteur synchronise), où
+ * chaque contains prend le moniteur, contre ANRConcurrent, où les recherches
+ * sont des lectures optimistes.
+ *
+ * <p>
+ * Le groupe lecture ne fait que des recherches : on fait varier le nombre de
+ * threads avec -t. Le groupe mixte ajoute un thread qui ajoute puis supprime
+ * des clés absentes pendant que les autres cherchent (-tg lecteurs,1 pour
+ * changer le nombre de lecteurs).
+ * </p>
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar ConcurrenceBenchmark.lecture -t 1
+ * java -jar target/benchmarks.jar ConcurrenceBenchmark.lecture -t 4
+ * java -jar target/benchmarks.jar ConcurrenceBenchmark.mixte -tg 3,1
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ConcurrenceBenchmark
+{
+	@Param({ "synchronise", "ANRConcurrent" })
+	String moteur;
+
+	@Param({ "100000" })
+	int n;
+
+	// les clés 0,...,n-1 sont dans l'arbre, n,...,2n-1 n'y sont pas
+	@SuppressWarnings("rawtypes")
+	Comparable[] cles;
+
+	@SuppressWarnings("rawtypes")
+	Collection<Comparable> arbre;
+
+	@SuppressWarnings("rawtypes")
+	@Setup(Level.Trial)
+	public void preparer()
+	{
+		cles = Cles.cles("Integer", 0, 2 * n, "croissant", 0);
+		if ("synchronise".equals(moteur))
+			arbre = Collections.synchronizedCollection(Moteurs.creer("ANR"));
+		else
+			arbre = Moteurs.creer(moteur);
+
+		Comparable[] presentes = Cles.cles("Integer", 0, n, "aleatoire", 42);
+		for (Comparable cle : presentes)
+			arbre.add(cle);
+	}
+
+	/**
+	 * Générateur pseudo-aléatoire propre à chaque thread (xorshift), pour
+	 * que le tirage des clés ne soit pas lui-même un point de contention
+	 */
+	@State(Scope.Thread)
+	public static class Tirage
+	{
+		int x = (int) System.nanoTime() | 1;
+
+		int suivant(int borne)
+		{
+			x ^= x << 13;
+			x ^= x >>> 17;
+			x ^= x << 5;
+			return (x & Integer.MAX_VALUE) % borne;
+		}
+	}
+
+	@Benchmark
+	@Group("lecture")
+	public boolean lire(Tirage t)
+	{
+		return arbre.contains(cles[t.suivant(cles.length)]);
+	}
+
+	@Benchmark
+	@Group("mixte")
+	@GroupThreads(3)
+	public boolean lireMixte(Tirage t)
+	{
+		return arbre.contains(cles[t.suivant(cles.length)]);
+	}
+
+	@Benchmark
+	@Group("mixte")
+	@GroupThreads(1)
+	public boolean ecrireMixte(Tirage t)
+	{
+		// une clé absente, ajoutée puis supprimée : la taille ne dérive pas
+		@SuppressWarnings("rawtypes")
+		Comparable cle = cles[n + t.suivant(n)];
+		arbre.add(cle);
+		return arbre.remove(cle);
+	}
+}
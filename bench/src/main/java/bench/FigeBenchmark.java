@@ -0,0 +1,81 @@
+package bench;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Recherche des n clés présentes et des n clés absentes du README dans un ANR
+ * et dans sa version figée (ANR.figer(), rangée dans l'ordre d'Eytzinger),
+ * clé par clé ou par lot (ANRFige.rechercherLot).
+ * 
+ * <pre>
+ * cd bench
+ * mvn -B package
+ * java -jar target/benchmarks.jar FigeBenchmark -p n=1000,1000000
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class FigeBenchmark
+{
+	@Param({ "ANR", "ANRFige" })
+	String moteur;
+
+	@Param({ "1000", "100000" })
+	int n;
+
+	@Param({ "Integer", "String" })
+	String type;
+
+	// Les 2n clés cherchées : 0,...,n-1 puis n,...,2n-1, mélangées
+	@SuppressWarnings("rawtypes")
+	Comparable[] sondes;
+
+	@SuppressWarnings("rawtypes")
+	Collection<Comparable> arbre;
+
+	@SuppressWarnings("rawtypes")
+	@Setup(Level.Trial)
+	public void preparer()
+	{
+		arbre = Moteurs.creer("ANR");
+		for (Comparable cle : Cles.cles(type, 0, n, "aleatoire", 42))
+			arbre.add(cle);
+		if ( moteur.equals("ANRFige") )
+			arbre = Moteurs.figer(arbre);
+
+		sondes = Cles.cles(type, 0, 2 * n, "aleatoire", 43);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Benchmark
+	public void rechercher(Blackhole bh)
+	{
+		for (Comparable cle : sondes)
+			bh.consume(arbre.contains(cle));
+	}
+
+	@Benchmark
+	public boolean[] rechercherLot()
+	{
+		return Moteurs.rechercherLot(arbre, sondes);
+	}
+}
@@ -0,0 +1,115 @@
+package bench;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Fabrique des différentes implantations comparées par les benchmarks. Le nom
+ * du moteur (-p moteur=...) est le nom de la classe : les arbres sont dans le
+ * paquetage par défaut, qui ne peut pas être importé depuis le paquetage
+ * bench, on passe donc par la réflexion pour les créer puis uniquement par
+ * l'interface Collection pour les utiliser.
+ */
+final class Moteurs
+{
+	private Moteurs() {}
+
+	/**
+	 * Crée une collection vide du moteur demandé, ordonnée selon l'ordre
+	 * naturel. Un nom de la forme Classe:k (ABRSplay:8) appelle le
+	 * constructeur de la classe qui prend un entier, avec k ; si k est un
+	 * nombre à virgule (ABR:2.0), celui qui prend un double.
+	 * 
+	 * @param moteur
+	 *            le nom de la classe du moteur (ABR, ANR...)
+	 * @return la collection vide
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	static Collection<Comparable> creer(String moteur)
+	{
+		try 
+		{
+			int i = moteur.indexOf(':');
+			if ( i >= 0 )
+			{
+				Class<?> classe = Class.forName(moteur.substring(0, i));
+				String k = moteur.substring(i + 1);
+				if ( k.indexOf('.') >= 0 )
+					return (Collection<Comparable>) classe.getConstructor(double.class).newInstance(Double.parseDouble(k));
+				return (Collection<Comparable>) classe.getConstructor(int.class).newInstance(Integer.parseInt(k));
+			}
+			return (Collection<Comparable>) Class.forName(moteur).getConstructor().newInstance();
+		} catch (ReflectiveOperationException e) 
+		{
+			throw new IllegalArgumentException("Moteur inconnu : " + moteur, e);
+		}
+	}
+
+	/**
+	 * Crée une collection vide du moteur demandé, ordonnée selon le
+	 * comparateur
+	 * 
+	 * @param moteur
+	 *            le nom de la classe du moteur (ABR, ANR...)
+	 * @param cmp
+	 *            le comparateur passé au constructeur
+	 * @return la collection vide
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	static Collection<Comparable> creer(String moteur, Comparator<?> cmp)
+	{
+		try 
+		{
+			return (Collection<Comparable>) Class.forName(moteur).getConstructor(Comparator.class).newInstance(cmp);
+		} catch (ReflectiveOperationException e) 
+		{
+			throw new IllegalArgumentException("Moteur inconnu : " + moteur, e);
+		}
+	}
+
+	/**
+	 * Renvoie la version figée (ANRFige) d'un ANR
+	 * 
+	 * @param anr
+	 *            l'arbre à figer
+	 * @return la version figée
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	static Collection<Comparable> figer(Collection<Comparable> anr)
+	{
+		try 
+		{
+			return (Collection<Comparable>) anr.getClass().getMethod("figer").invoke(anr);
+		} catch (ReflectiveOperationException e) 
+		{
+			throw new IllegalArgumentException("Pas de version figée : " + anr.getClass().getName(), e);
+		}
+	}
+
+	/**
+	 * Recherche toutes les clés : par ANRFige.rechercherLot si la collection
+	 * en a une, sinon clé par clé
+	 * 
+	 * @param c
+	 *            la collection où chercher
+	 * @param cles
+	 *            les clés à chercher
+	 * @return le tableau des résultats
+	 */
+	static boolean[] rechercherLot(Collection<?> c, Object[] cles)
+	{
+		try 
+		{
+			return (boolean[]) c.getClass().getMethod("rechercherLot", Object[].class).invoke(c, (Object) cles);
+		} catch (NoSuchMethodException e) 
+		{
+			boolean[] trouve = new boolean[cles.length];
+			for (int i = 0; i < cles.length; i++)
+				trouve[i] = c.contains(cles[i]);
+			return trouve;
+		} catch (ReflectiveOperationException e) 
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+}
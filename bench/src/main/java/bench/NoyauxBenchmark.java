@@ -0,0 +1,121 @@
+package bench;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Recherche des 2n clés Integer du README dans un ANR ou un ABR ordonné selon
+ * l'ordre naturel, que l'arbre compare lui-même (ordre=naturel), ou selon un
+ * comparateur équivalent, appelé à chaque comparaison (ordre=comparateur).
+ * Avec pollue=true, des arbres de clés Integer, Long et String sont d'abord
+ * parcourus par contains dans le même fork : le site d'appel de compareTo
+ * dans le comparateur voit alors trois types de clés et n'est plus inliné.
+ * 
+ * <pre>
+ * cd bench
+ * mvn -B package
+ * java -jar target/benchmarks.jar NoyauxBenchmark -p n=1000,1000000
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class NoyauxBenchmark
+{
+	@Param({ "ANR", "ABR" })
+	String moteur;
+
+	@Param({ "1000", "100000" })
+	int n;
+
+	@Param({ "naturel", "comparateur" })
+	String ordre;
+
+	@Param({ "false", "true" })
+	boolean pollue;
+
+	@SuppressWarnings("rawtypes")
+	Comparable[] sondes;
+
+	@SuppressWarnings("rawtypes")
+	Collection<Comparable> arbre;
+
+	// un comparateur qui n'est pas Comparator.naturalOrder() : l'arbre
+	// passe par lui
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	static final Comparator<Comparable> COMPARATEUR = (a, b) -> a.compareTo(b);
+
+	@SuppressWarnings("rawtypes")
+	@Setup(Level.Trial)
+	public void preparer()
+	{
+		if ( pollue )
+		{
+			for (String type : new String[] { "Integer", "String", "Long" })
+			{
+				Comparable[] cles = cles(type, 0, 10000);
+				for (int tour = 0; tour < 20; tour++)
+				{
+					Collection<Comparable> a = creer();
+					for (Comparable cle : cles)
+						a.add(cle);
+					for (Comparable cle : cles)
+						a.contains(cle);
+				}
+			}
+		}
+
+		arbre = creer();
+		for (Comparable cle : cles("Integer", 0, n))
+			arbre.add(cle);
+		sondes = cles("Integer", 0, 2 * n);
+		Cles.melanger(sondes, new Random(43));
+	}
+
+	@SuppressWarnings("rawtypes")
+	private Collection<Comparable> creer()
+	{
+		if ( ordre.equals("naturel") )
+			return Moteurs.creer(moteur);
+		return Moteurs.creer(moteur, COMPARATEUR);
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static Comparable[] cles(String type, int debut, int fin)
+	{
+		if ( !type.equals("Long") )
+			return Cles.cles(type, debut, fin, "aleatoire", 42);
+		Comparable[] t = new Comparable[fin - debut];
+		for (int i = 0; i < t.length; i++)
+			t[i] = Long.valueOf(debut + i);
+		Cles.melanger(t, new Random(42));
+		return t;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Benchmark
+	public void rechercher(Blackhole bh)
+	{
+		for (Comparable cle : sondes)
+			bh.consume(arbre.contains(cle));
+	}
+}
@@ -0,0 +1,113 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Recherche de clés présentes tirées selon une loi uniforme ou une loi de
+ * Zipf (la clé de rang r est demandée avec une probabilité proportionnelle à
+ * 1/r^s), pour comparer un arbre équilibré (ANR) à un arbre auto-ajustant
+ * (ABRSplay, ABRSplay:k pour ne remonter qu'un accès sur k).
+ * 
+ * <p>
+ * Les rangs de Zipf sont attribués aux clés dans un ordre aléatoire : les
+ * clés fréquentes sont dispersées dans l'arbre.
+ * </p>
+ * 
+ * <pre>
+ * cd bench
+ * mvn -B package
+ * java -jar target/benchmarks.jar ZipfBenchmark -p s=0.8,1.2
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ZipfBenchmark
+{
+	// nombre de recherches par appel
+	static final int TIRAGES = 1 << 16;
+
+	@Param({ "ANR", "ABRSplay", "ABRSplay:8" })
+	String moteur;
+
+	@Param({ "100000" })
+	int n;
+
+	@Param({ "uniforme", "zipf" })
+	String loi;
+
+	// exposant de la loi de Zipf
+	@Param({ "1.0" })
+	double s;
+
+	@SuppressWarnings("rawtypes")
+	Comparable[] tirages;
+
+	@SuppressWarnings("rawtypes")
+	Collection<Comparable> arbre;
+
+	@SuppressWarnings("rawtypes")
+	@Setup(Level.Trial)
+	public void preparer()
+	{
+		arbre = Moteurs.creer(moteur);
+		for (Comparable cle : Cles.cles("Integer", 0, n, "aleatoire", 42))
+			arbre.add(cle);
+
+		// cles[r] est la clé de rang r + 1
+		Comparable[] cles = Cles.cles("Integer", 0, n, "aleatoire", 43);
+		Random random = new Random(44);
+		tirages = new Comparable[TIRAGES];
+		switch (loi) 
+		{
+			case "uniforme":
+				for (int i = 0; i < TIRAGES; i++)
+					tirages[i] = cles[random.nextInt(n)];
+				break;
+			case "zipf":
+				// fonction de répartition, puis inversion par recherche
+				// dichotomique
+				double[] repartition = new double[n];
+				double somme = 0;
+				for (int r = 0; r < n; r++)
+					repartition[r] = somme += 1 / Math.pow(r + 1, s);
+				for (int i = 0; i < TIRAGES; i++)
+				{
+					int r = Arrays.binarySearch(repartition, random.nextDouble() * somme);
+					tirages[i] = cles[r < 0 ? Math.min(-r - 1, n - 1) : r];
+				}
+				break;
+			default: throw new IllegalArgumentException("Loi inconnue : " + loi);
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Benchmark
+	@OperationsPerInvocation(TIRAGES)
+	public void rechercher(Blackhole bh)
+	{
+		for (Comparable cle : tirages)
+			bh.consume(arbre.contains(cle));
+	}
+}
@@ -0,0 +1,59 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests de non-régression d'ANRMap
+ */
+class ANRMapTest
+{
+	private static ANRMap<Integer, Integer> table(int n)
+	{
+		ANRMap<Integer, Integer> m = new ANRMap<Integer, Integer>();
+		for (int i = 0; i < n; i++)
+			m.put(i, i);
+		return m;
+	}
+
+	private static List<Integer> suite(int debut, int fin)
+	{
+		List<Integer> l = new ArrayList<Integer>();
+		for (int i = debut; i < fin; i++)
+			l.add(i);
+		return l;
+	}
+
+	@Test
+	void computeIfAbsentAvecUneLectureDeLaTable()
+	{
+		ANRMap<Integer, Integer> m = table(51);
+		m.remove(50);
+		assertEquals(2, m.computeIfAbsent(51, k -> m.get(3) == null ? 1 : 2));
+		assertEquals(2, m.get(51));
+
+		List<Integer> attendu = suite(0, 50);
+		attendu.add(51);
+		assertEquals(attendu, new ArrayList<Integer>(m.keySet()));
+	}
+
+	@Test
+	void computeAvecUneLectureDeLaTable()
+	{
+		ANRMap<Integer, Integer> m = table(50);
+		assertEquals(1, m.compute(-1, (k, v) -> m.containsKey(40) ? 1 : 0));
+		assertEquals(1, m.get(-1));
+		assertEquals(suite(-1, 50), new ArrayList<Integer>(m.keySet()));
+	}
+
+	@Test
+	void computeIfAbsentQuiModifieLaTable()
+	{
+		ANRMap<Integer, Integer> m = table(10);
+		assertThrows(ConcurrentModificationException.class, () -> m.computeIfAbsent(20, k -> m.put(30, 0)));
+	}
+}
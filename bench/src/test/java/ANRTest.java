@@ -0,0 +1,123 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/**
+ * Tests de non-régression d'ANR
+ */
+class ANRTest
+{
+	private static ANR<Integer> decroissant(int n)
+	{
+		ANR<Integer> a = new ANR<Integer>(Comparator.<Integer>reverseOrder());
+		for (int i = 0; i < n; i++)
+			a.add(i);
+		return a;
+	}
+
+	@Test
+	void unionAvecSoiMemeGardeLeComparateur()
+	{
+		ANR<Integer> a = decroissant(50);
+		a.union(a);
+
+		List<Integer> attendu = new ArrayList<Integer>();
+		for (int i = 49; i >= 0; i--)
+		{
+			attendu.add(i);
+			attendu.add(i);
+		}
+		assertEquals(attendu, new ArrayList<Integer>(a));
+		assertEquals(100, a.size());
+	}
+
+	@Test
+	void unionParalleleAvecSoiMemeGardeLeComparateur()
+	{
+		ANR<Integer> a = decroissant(50);
+		a.unionParallele(a);
+		List<Integer> l = new ArrayList<Integer>(a);
+		for (int i = 1; i < l.size(); i++)
+			assertEquals(true, l.get(i - 1) >= l.get(i));
+		assertEquals(100, a.size());
+	}
+
+	@Test
+	void addAllDUnANRGardeLesDoublonsEtLOrdre()
+	{
+		ANR<Integer> a = decroissant(30);
+		ANR<Integer> b = new ANR<Integer>(Comparator.<Integer>reverseOrder());
+		for (int i = 20; i < 40; i++)
+			b.add(i);
+		a.addAll(b);
+
+		List<Integer> attendu = new ArrayList<Integer>();
+		for (int i = 39; i >= 0; i--)
+		{
+			attendu.add(i);
+			if ( i >= 20 && i < 30 )
+				attendu.add(i);
+		}
+		assertEquals(attendu, new ArrayList<Integer>(a));
+		assertEquals(20, b.size());
+	}
+
+	@Test
+	@Timeout(10)
+	void unionDUnMultiensembleAvecLuiMemeDoubleLesOccurrences()
+	{
+		ANR<Integer> m = new ANR<Integer>(true);
+		for (int i = 0; i < 5; i++)
+		{
+			m.add(i);
+			m.add(i);
+		}
+		m.union(m);
+		assertEquals(20, m.size());
+		assertEquals(5, m.distinctSize());
+		assertEquals(4, m.count(3));
+		assertEquals(12, m.rank(3));
+
+		m.addAll(m);
+		assertEquals(40, m.size());
+		assertEquals(8, m.count(0));
+		assertEquals(40, new ArrayList<Integer>(m).size());
+	}
+
+	@Test
+	void lesAjoutsComptentLesComparaisonsFaites()
+	{
+		ANR<Integer> a = new ANR<Integer>();
+		a.add(0);
+		a.add(2);
+		a.add(4);
+		TreeStatsMXBean stats = a.activerStats();
+
+		// plus grand que le maximum : une comparaison
+		a.add(5);
+		assertEquals(1, stats.getComparaisons());
+		// plus petit que le minimum : deux
+		a.add(-1);
+		assertEquals(3, stats.getComparaisons());
+		// entre les deux : les deux bornes, puis la descente 2, 4
+		a.add(3);
+		assertEquals(7, stats.getComparaisons());
+	}
+
+	@Test
+	void lesStatsDUnMultiensembleComptentLesNoeuds()
+	{
+		ANR<Integer> m = new ANR<Integer>(true);
+		TreeStatsMXBean stats = m.activerStats();
+		for (int i = 0; i < 10; i++)
+			for (int j = 0; j <= i; j++)
+				m.add(i);
+		assertEquals(55, m.size());
+		assertEquals(10, stats.getNombreNoeuds());
+	}
+}